@@ -0,0 +1,79 @@
+#!/bin/bash
+
+# Narrows down the capacity of one endpoint. Each round runs DungeonGameCapacityTest as stairs,
+# then restarts just below the first breaching rate with a quarter of the step, until the step
+# is smaller than MIN_STEP. Rates are req/s across all nodes.
+
+# Colors for output
+RED='\033[0;31m'
+GREEN='\033[0;32m'
+YELLOW='\033[1;33m'
+BLUE='\033[0;34m'
+CYAN='\033[0;36m'
+NC='\033[0m' # No Color
+
+print_status() {
+    echo -e "${BLUE}[INFO]${NC} $1"
+}
+
+print_success() {
+    echo -e "${GREEN}[SUCCESS]${NC} $1"
+}
+
+print_warning() {
+    echo -e "${YELLOW}[WARNING]${NC} $1"
+}
+
+print_error() {
+    echo -e "${RED}[ERROR]${NC} $1"
+}
+
+print_header() {
+    echo -e "${CYAN}[GATLING]${NC} $1"
+}
+
+export ENDPOINT=${ENDPOINT:-calculate-generated}
+export NODE_ID=${NODE_ID:-1}
+export TOTAL_NODES=${TOTAL_NODES:-1}
+START_RATE=${START_RATE:-10}
+RATE_STEP=${RATE_STEP:-50}
+MIN_STEP=${MIN_STEP:-5}
+LEVELS=${LEVELS:-20}
+REPORT="target/capacity/${ENDPOINT}-node${NODE_ID}.json"
+
+json_number() {
+    grep -o "\"$1\":[0-9.]*" "$REPORT" | head -1 | cut -d: -f2
+}
+
+print_header "Capacity search for $ENDPOINT"
+print_header "========================================"
+
+round=1
+knee=""
+while awk "BEGIN { exit !($RATE_STEP >= $MIN_STEP) }"; do
+    print_status "Round $round: from $START_RATE req/s in steps of $RATE_STEP, $LEVELS levels"
+    rm -f "$REPORT"
+    if ! START_RATE=$START_RATE RATE_STEP=$RATE_STEP LEVELS=$LEVELS \
+        ./mvnw -q gatling:test -Dgatling.simulationClass=com.codegik.stress.DungeonGameCapacityTest; then
+        print_warning "Gatling reported failures in round $round, using the capacity report anyway"
+    fi
+    if [ ! -f "$REPORT" ]; then
+        print_error "No capacity report written to $REPORT"
+        exit 1
+    fi
+
+    knee=$(json_number globalKneeRps)
+    breach=$(json_number firstBreachGlobalRps)
+    if [ -z "$breach" ]; then
+        print_warning "No SLO breach up to the last level; raise START_RATE, RATE_STEP or LEVELS"
+        break
+    fi
+    print_status "Round $round: knee $knee req/s, first breach at $breach req/s"
+
+    START_RATE=$(awk "BEGIN { r = $breach - $RATE_STEP; print (r > 0 ? r : $breach / 2) }")
+    RATE_STEP=$(awk "BEGIN { print $RATE_STEP / 4 }")
+    LEVELS=5
+    round=$((round + 1))
+done
+
+print_success "Sustainable throughput for $ENDPOINT: ${knee:-unknown} req/s (report: $REPORT)"
@@ -84,6 +84,23 @@ if ls ./logs/node*/*/simulation.log 1> /dev/null 2>&1; then
     else
         print_error "Failed to generate consolidated report using Gatling Maven plugin"
     fi
+
+    print_status "Merging per-node latency histograms..."
+    # exec.args is split on spaces unless an argument is quoted, so quote each path
+    node_dirs=(./logs/node*/)
+    consolidator_args="'./target/gatling/consolidated'"
+    for node_dir in "${node_dirs[@]}"; do
+        consolidator_args+=" '${node_dir%/}'"
+    done
+    ./mvnw -q test-compile exec:java -Dexec.classpathScope=test \
+        -Dexec.mainClass=com.codegik.stress.SimulationLogConsolidator \
+        -Dexec.args="$consolidator_args"
+
+    if [ $? -eq 0 ]; then
+        print_success "Latency summary: ./target/gatling/consolidated/latency-summary.html"
+    else
+        print_error "Failed to merge latency histograms"
+    fi
 else
     print_error "No simulation logs found in ./logs/node*/simulation.log"
     print_error "Check if the Gatling tests completed successfully and generated logs"
@@ -0,0 +1,52 @@
+package com.codegik.config;
+
+import com.codegik.game.CellBufferPool;
+import com.codegik.game.DungeonGame;
+import com.codegik.game.SolverMode;
+import com.codegik.game.WavefrontSolver;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ForkJoinPool;
+
+@Configuration
+public class DungeonGameConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public ForkJoinPool solverPool(@Value("${dungeon.solver.parallelism:0}") int parallelism) {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        return new ForkJoinPool(threads);
+    }
+
+    // Request parsers use the shared pool directly; the bean applies the configured bound to it
+    @Bean
+    public CellBufferPool cellBufferPool(MeterRegistry registry,
+                                         @Value("${dungeon.grid.pool.max-cells:" + CellBufferPool.DEFAULT_MAX_POOLED_CELLS + "}") long maxPooledCells) {
+        CellBufferPool pool = CellBufferPool.SHARED;
+        pool.setMaxPooledCells(maxPooledCells);
+        Gauge.builder("dungeon.grid.pool.cells", pool, CellBufferPool::getPooledCells)
+            .description("Cells held in pooled parse buffers")
+            .register(registry);
+        FunctionCounter.builder("dungeon.grid.pool.acquires", pool, CellBufferPool::getHits)
+            .description("Parse buffer requests, by whether a pooled buffer was reused")
+            .tag("result", "hit")
+            .register(registry);
+        FunctionCounter.builder("dungeon.grid.pool.acquires", pool, CellBufferPool::getMisses)
+            .description("Parse buffer requests, by whether a pooled buffer was reused")
+            .tag("result", "miss")
+            .register(registry);
+        return pool;
+    }
+
+    @Bean
+    public DungeonGame dungeonGame(ForkJoinPool solverPool,
+                                   @Value("${dungeon.solver.mode:ROLLING_ROW}") SolverMode mode,
+                                   @Value("${dungeon.solver.parallel-threshold:4000000}") long parallelThreshold,
+                                   @Value("${dungeon.solver.tile-size:" + WavefrontSolver.DEFAULT_TILE_SIZE + "}") int tileSize) {
+        return new DungeonGame(mode, new WavefrontSolver(solverPool, tileSize), parallelThreshold);
+    }
+}
@@ -0,0 +1,27 @@
+package com.codegik.config;
+
+import com.codegik.dto.DungeonBinaryMessageConverter;
+import com.codegik.dto.DungeonGridReader;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    private final long binaryMaxCells;
+
+    public WebConfig(@Value("${dungeon.binary.max-cells:100000000}") long binaryMaxCells) {
+        this.binaryMaxCells = binaryMaxCells;
+        DungeonGridReader.setMaxCells(binaryMaxCells);
+    }
+
+    // Appended last so clients sending Accept: */* keep getting JSON.
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new DungeonBinaryMessageConverter(binaryMaxCells));
+    }
+}
@@ -1,14 +1,45 @@
 package com.codegik.controller;
 
+import com.codegik.dto.BatchDungeonItem;
+import com.codegik.dto.BatchDungeonRequest;
+import com.codegik.dto.BatchDungeonResponse;
+import com.codegik.dto.CacheStats;
+import com.codegik.dto.DimensionStats;
+import com.codegik.dto.DungeonBinaryFormat;
+import com.codegik.dto.DungeonJobResponse;
+import com.codegik.dto.DungeonPatchRequest;
 import com.codegik.dto.DungeonRequest;
 import com.codegik.dto.DungeonResponse;
+import com.codegik.dto.DungeonSessionResponse;
+import com.codegik.dto.ResultCursor;
+import com.codegik.dto.ResultDistributionStats;
 import com.codegik.entity.DungeonResult;
+import com.codegik.game.DungeonPath;
+import com.codegik.service.CalculateMetrics;
+import com.codegik.service.DatabaseBusyException;
+import com.codegik.service.DimensionBucket;
 import com.codegik.service.DungeonGameService;
+import com.codegik.service.DungeonJobService;
+import com.codegik.service.DungeonSessionService;
+import com.codegik.service.JobQueueFullException;
+import com.codegik.service.OfflineSolveService;
+import com.codegik.service.OfflineSolvingDisabledException;
+import com.codegik.service.ResultDistribution;
+import com.codegik.service.UploadTooLargeException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,29 +48,195 @@ import java.util.Optional;
 @CrossOrigin(origins = "*")
 public class DungeonGameController {
 
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int MAX_HISTOGRAM_BINS = 200;
+
     private final DungeonGameService dungeonGameService;
+    private final DungeonJobService dungeonJobService;
+    private final DungeonSessionService dungeonSessionService;
+    private final OfflineSolveService offlineSolveService;
+    private final ResultDistribution resultDistribution;
+    private final CalculateMetrics metrics;
 
     @Autowired
-    public DungeonGameController(DungeonGameService dungeonGameService) {
+    public DungeonGameController(DungeonGameService dungeonGameService, DungeonJobService dungeonJobService,
+                                 DungeonSessionService dungeonSessionService, OfflineSolveService offlineSolveService,
+                                 ResultDistribution resultDistribution, CalculateMetrics metrics) {
         this.dungeonGameService = dungeonGameService;
+        this.dungeonJobService = dungeonJobService;
+        this.dungeonSessionService = dungeonSessionService;
+        this.offlineSolveService = offlineSolveService;
+        this.resultDistribution = resultDistribution;
+        this.metrics = metrics;
     }
 
     @PostMapping("/calculate")
-    public ResponseEntity<DungeonResponse> calculateMinimumHP(@Valid @RequestBody DungeonRequest request) {
+    public ResponseEntity<DungeonResponse> calculateMinimumHP(
+            @Valid @RequestBody DungeonRequest request,
+            @RequestParam(defaultValue = "false") boolean includePath) {
         try {
-            DungeonResult result = dungeonGameService.calculateAndSave(request.getDungeon());
+            if (!includePath) {
+                DungeonResult result = dungeonGameService.calculateAndSave(request.getDungeon());
+                return ResponseEntity.ok(new DungeonResponse(result.getResult(), "Success"));
+            }
+            DungeonPath path = dungeonGameService.findPath(request.getDungeon());
+            DungeonResult result = dungeonGameService.saveWithPath(request.getDungeon(), path);
             DungeonResponse response = new DungeonResponse(result.getResult(), "Success");
+            response.setPath(path.encode());
+            response.setPathLength(path.length());
             return ResponseEntity.ok(response);
+        } catch (DatabaseBusyException e) {
+            metrics.recordError(e);
+            DungeonResponse busyResponse = new DungeonResponse(0, "Error: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(busyResponse);
         } catch (Exception e) {
+            metrics.recordError(e);
             DungeonResponse errorResponse = new DungeonResponse(0, "Error: " + e.getMessage());
             return ResponseEntity.badRequest().body(errorResponse);
+        } finally {
+            request.getDungeon().release();
+        }
+    }
+
+    @PostMapping("/calculate/batch")
+    public ResponseEntity<BatchDungeonResponse> calculateBatch(@Valid @RequestBody BatchDungeonRequest request) {
+        try {
+            return ResponseEntity.ok(new BatchDungeonResponse(dungeonGameService.calculateAndSaveBatch(request.getDungeons())));
+        } catch (DatabaseBusyException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        } catch (IllegalArgumentException e) {
+            // More dungeons than dungeon.batch.max-size, refused like an oversized session grid
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        } finally {
+            for (BatchDungeonItem item : request.getDungeons()) {
+                if (item != null && item.isValid()) {
+                    item.getGrid().release();
+                }
+            }
+        }
+    }
+
+    // The job takes over the parsed grid and releases it once solved
+    @PostMapping("/jobs")
+    public ResponseEntity<DungeonJobResponse> submitJob(@Valid @RequestBody DungeonRequest request) {
+        try {
+            DungeonJobResponse job = dungeonJobService.submit(request.getDungeon()).toResponse();
+            return ResponseEntity.accepted()
+                .location(URI.create("/api/dungeon/jobs/" + job.getId()))
+                .body(job);
+        } catch (JobQueueFullException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build();
+        }
+    }
+
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<DungeonJobResponse> getJob(@PathVariable String id) {
+        return dungeonJobService.getJob(id)
+            .map(job -> ResponseEntity.ok(job.toResponse()))
+            .orElse(ResponseEntity.notFound().build());
+    }
+
+    @PostMapping(value = "/admin/solve", consumes = DungeonBinaryFormat.MEDIA_TYPE_VALUE)
+    public ResponseEntity<DungeonResult> solveOffline(
+            InputStream body,
+            @RequestHeader(value = HttpHeaders.CONTENT_LENGTH, required = false) Long contentLength) throws IOException {
+        try {
+            return ResponseEntity.ok(offlineSolveService.solveUpload(body, contentLength == null ? -1 : contentLength));
+        } catch (OfflineSolvingDisabledException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        } catch (UploadTooLargeException e) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (DatabaseBusyException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
         }
     }
 
+    @PostMapping("/admin/solve-file")
+    public ResponseEntity<DungeonResult> solveOfflineFile(@RequestParam String name) throws IOException {
+        try {
+            return ResponseEntity.ok(offlineSolveService.solveFile(name));
+        } catch (OfflineSolvingDisabledException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (DatabaseBusyException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
+    @PostMapping("/sessions")
+    public ResponseEntity<DungeonSessionResponse> createSession(@Valid @RequestBody DungeonRequest request) {
+        try {
+            DungeonSessionResponse session = dungeonSessionService.create(request.getDungeon());
+            return ResponseEntity.created(URI.create("/api/dungeon/sessions/" + session.getId())).body(session);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        } finally {
+            request.getDungeon().release();
+        }
+    }
+
+    @GetMapping("/sessions/{id}")
+    public ResponseEntity<DungeonSessionResponse> getSession(@PathVariable String id) {
+        return dungeonSessionService.get(id)
+            .map(ResponseEntity::ok)
+            .orElse(ResponseEntity.notFound().build());
+    }
+
+    @PatchMapping("/sessions/{id}")
+    public ResponseEntity<DungeonSessionResponse> patchSession(
+            @PathVariable String id, @Valid @RequestBody DungeonPatchRequest request) {
+        try {
+            return dungeonSessionService.patch(id, request.getCells())
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @DeleteMapping("/sessions/{id}")
+    public ResponseEntity<Void> deleteSession(@PathVariable String id) {
+        return dungeonSessionService.delete(id)
+            ? ResponseEntity.noContent().build()
+            : ResponseEntity.notFound().build();
+    }
+
     @GetMapping("/results")
-    public ResponseEntity<List<DungeonResult>> getAllResults() {
-        List<DungeonResult> results = dungeonGameService.getAllResults();
-        return ResponseEntity.ok(results);
+    public ResponseEntity<List<DungeonResult>> getAllResults(
+            @RequestParam(defaultValue = "100") int limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean includeData) {
+        ResultCursor after;
+        try {
+            after = cursor == null ? null : ResultCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<DungeonResult> results = dungeonGameService.getResultsPage(pageSize, after, includeData);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (results.size() == pageSize) {
+            response.header(NEXT_CURSOR_HEADER, ResultCursor.after(results.get(results.size() - 1)).encode());
+        }
+        return response.body(results);
+    }
+
+    @GetMapping(value = "/results/stream", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> streamResults(
+            @RequestParam(defaultValue = "false") boolean includeData) {
+        try {
+            dungeonGameService.reserveResultStream();
+        } catch (DatabaseBusyException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        StreamingResponseBody body = out -> dungeonGameService.streamResults(includeData, out);
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
     }
 
     @GetMapping("/results/{id}")
@@ -75,6 +272,48 @@ public class DungeonGameController {
         return ResponseEntity.ok(count);
     }
 
+    @GetMapping("/stats/dimensions")
+    public ResponseEntity<List<DimensionStats>> getAllDimensionStats() {
+        return ResponseEntity.ok(dungeonGameService.getAllDimensionStats());
+    }
+
+    @GetMapping("/stats/dimensions/{rows}/{columns}")
+    public ResponseEntity<DimensionStats> getDimensionStats(
+            @PathVariable Integer rows, @PathVariable Integer columns) {
+        DimensionStats stats = dungeonGameService.getDimensionStats(rows, columns);
+        return stats == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(stats);
+    }
+
+    @GetMapping("/stats/distribution")
+    public ResponseEntity<List<ResultDistributionStats>> getResultDistribution(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String bucket,
+            @RequestParam(required = false) Integer rows,
+            @RequestParam(required = false) Integer columns,
+            @RequestParam(defaultValue = "false") boolean perWindow,
+            @RequestParam(defaultValue = "20") int bins) {
+        try {
+            LocalDateTime start = from == null ? resultDistribution.getRetentionStart() : from;
+            LocalDateTime end = to == null ? LocalDateTime.now() : to;
+            DimensionBucket dimensions = null;
+            if (bucket != null) {
+                dimensions = DimensionBucket.named(bucket);
+            } else if (rows != null && columns != null) {
+                dimensions = DimensionBucket.of(rows, columns);
+            }
+            return ResponseEntity.ok(resultDistribution.query(start, end, dimensions, perWindow,
+                Math.max(1, Math.min(bins, MAX_HISTOGRAM_BINS))));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/stats/cache")
+    public ResponseEntity<CacheStats> getCacheStats() {
+        return ResponseEntity.ok(dungeonGameService.getCacheStats());
+    }
+
     @GetMapping("/health")
     public ResponseEntity<String> health() {
         return ResponseEntity.ok("Dungeon Game API is running");
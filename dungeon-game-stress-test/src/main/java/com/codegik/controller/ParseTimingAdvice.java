@@ -0,0 +1,56 @@
+package com.codegik.controller;
+
+import com.codegik.dto.DungeonRequest;
+import com.codegik.service.CalculateMetrics;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.mvc.method.annotation.RequestBodyAdviceAdapter;
+
+import java.lang.reflect.Type;
+
+/**
+ * Times how long the message converter takes to turn a request body into a DungeonRequest, for
+ * the parse stage of {@link CalculateMetrics}. The start time rides on the request itself, since a
+ * per-thread slot would be allocated afresh for every virtual thread that serves a request.
+ */
+@ControllerAdvice
+public class ParseTimingAdvice extends RequestBodyAdviceAdapter {
+
+    private static final String PARSE_START = ParseTimingAdvice.class.getName() + ".parseStart";
+
+    private final CalculateMetrics metrics;
+
+    public ParseTimingAdvice(CalculateMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public boolean supports(MethodParameter methodParameter, Type targetType,
+                            Class<? extends HttpMessageConverter<?>> converterType) {
+        return targetType == DungeonRequest.class;
+    }
+
+    @Override
+    public HttpInputMessage beforeBodyRead(HttpInputMessage inputMessage, MethodParameter parameter, Type targetType,
+                                           Class<? extends HttpMessageConverter<?>> converterType) {
+        RequestContextHolder.currentRequestAttributes()
+            .setAttribute(PARSE_START, System.nanoTime(), RequestAttributes.SCOPE_REQUEST);
+        return inputMessage;
+    }
+
+    @Override
+    public Object afterBodyRead(Object body, HttpInputMessage inputMessage, MethodParameter parameter, Type targetType,
+                                Class<? extends HttpMessageConverter<?>> converterType) {
+        DungeonRequest request = (DungeonRequest) body;
+        Object start = RequestContextHolder.currentRequestAttributes()
+            .getAttribute(PARSE_START, RequestAttributes.SCOPE_REQUEST);
+        if (request.getDungeon() != null && start != null) {
+            metrics.record(CalculateMetrics.Stage.PARSE, request.getDungeon().size(), (Long) start);
+        }
+        return body;
+    }
+}
@@ -0,0 +1,57 @@
+package com.codegik.dto;
+
+import com.codegik.game.DungeonGrid;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+
+import java.io.IOException;
+
+/**
+ * One entry of a batch request: either a parsed grid or the reason it was rejected, so a single
+ * bad dungeon fails on its own instead of failing the whole batch.
+ */
+@JsonDeserialize(using = BatchDungeonItem.Deserializer.class)
+public class BatchDungeonItem {
+
+    private final DungeonGrid grid;
+    private final String error;
+
+    private BatchDungeonItem(DungeonGrid grid, String error) {
+        this.grid = grid;
+        this.error = error;
+    }
+
+    public static BatchDungeonItem valid(DungeonGrid grid) {
+        return new BatchDungeonItem(grid, null);
+    }
+
+    public static BatchDungeonItem invalid(String error) {
+        return new BatchDungeonItem(null, error);
+    }
+
+    public DungeonGrid getGrid() {
+        return grid;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public boolean isValid() {
+        return grid != null;
+    }
+
+    public static class Deserializer extends JsonDeserializer<BatchDungeonItem> {
+
+        @Override
+        public BatchDungeonItem deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            try {
+                return valid(DungeonGridReader.read(parser));
+            } catch (InvalidDungeonException e) {
+                return invalid(e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.codegik.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.List;
+
+public class BatchDungeonRequest {
+
+    @NotNull(message = "Dungeons cannot be null")
+    @NotEmpty(message = "Dungeons cannot be empty")
+    private List<BatchDungeonItem> dungeons;
+
+    public BatchDungeonRequest() {
+    }
+
+    public BatchDungeonRequest(List<BatchDungeonItem> dungeons) {
+        this.dungeons = dungeons;
+    }
+
+    public List<BatchDungeonItem> getDungeons() {
+        return dungeons;
+    }
+
+    public void setDungeons(List<BatchDungeonItem> dungeons) {
+        this.dungeons = dungeons;
+    }
+}
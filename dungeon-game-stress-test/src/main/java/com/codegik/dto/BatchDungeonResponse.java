@@ -0,0 +1,48 @@
+package com.codegik.dto;
+
+import java.util.List;
+
+public class BatchDungeonResponse {
+
+    private List<DungeonResponse> results;
+    private int succeeded;
+    private int failed;
+
+    public BatchDungeonResponse() {
+    }
+
+    public BatchDungeonResponse(List<DungeonResponse> results) {
+        this.results = results;
+        for (DungeonResponse response : results) {
+            if ("Success".equals(response.getMessage())) {
+                succeeded++;
+            } else {
+                failed++;
+            }
+        }
+    }
+
+    public List<DungeonResponse> getResults() {
+        return results;
+    }
+
+    public void setResults(List<DungeonResponse> results) {
+        this.results = results;
+    }
+
+    public int getSucceeded() {
+        return succeeded;
+    }
+
+    public void setSucceeded(int succeeded) {
+        this.succeeded = succeeded;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public void setFailed(int failed) {
+        this.failed = failed;
+    }
+}
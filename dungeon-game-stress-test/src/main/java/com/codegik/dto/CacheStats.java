@@ -0,0 +1,49 @@
+package com.codegik.dto;
+
+public class CacheStats {
+
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final int entries;
+    private final long weight;
+    private final long maxWeight;
+
+    public CacheStats(long hits, long misses, long evictions, int entries, long weight, long maxWeight) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.entries = entries;
+        this.weight = weight;
+        this.maxWeight = maxWeight;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public int getEntries() {
+        return entries;
+    }
+
+    public long getWeight() {
+        return weight;
+    }
+
+    public long getMaxWeight() {
+        return maxWeight;
+    }
+
+    public double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+}
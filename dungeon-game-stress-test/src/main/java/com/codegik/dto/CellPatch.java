@@ -0,0 +1,48 @@
+package com.codegik.dto;
+
+import jakarta.validation.constraints.NotNull;
+
+public class CellPatch {
+
+    @NotNull(message = "Row cannot be null")
+    private Integer row;
+
+    @NotNull(message = "Column cannot be null")
+    private Integer column;
+
+    @NotNull(message = "Value cannot be null")
+    private Integer value;
+
+    public CellPatch() {
+    }
+
+    public CellPatch(int row, int column, int value) {
+        this.row = row;
+        this.column = column;
+        this.value = value;
+    }
+
+    public Integer getRow() {
+        return row;
+    }
+
+    public void setRow(Integer row) {
+        this.row = row;
+    }
+
+    public Integer getColumn() {
+        return column;
+    }
+
+    public void setColumn(Integer column) {
+        this.column = column;
+    }
+
+    public Integer getValue() {
+        return value;
+    }
+
+    public void setValue(Integer value) {
+        this.value = value;
+    }
+}
@@ -0,0 +1,48 @@
+package com.codegik.dto;
+
+public class DimensionStats {
+
+    private final int rows;
+    private final int columns;
+    private final long count;
+    private final long sum;
+    private final int min;
+    private final int max;
+
+    public DimensionStats(int rows, int columns, long count, long sum, int min, int max) {
+        this.rows = rows;
+        this.columns = columns;
+        this.count = count;
+        this.sum = sum;
+        this.min = min;
+        this.max = max;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getSum() {
+        return sum;
+    }
+
+    public int getMin() {
+        return min;
+    }
+
+    public int getMax() {
+        return max;
+    }
+
+    public double getAverage() {
+        return count == 0 ? 0.0 : (double) sum / count;
+    }
+}
@@ -0,0 +1,98 @@
+package com.codegik.dto;
+
+import com.codegik.game.CellBufferPool;
+import com.codegik.game.DungeonGrid;
+import org.springframework.http.MediaType;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * application/x-dungeon wire format. Requests are an int32 row count, an int32 column count and
+ * rows * columns int32 cells in row-major order; responses are an int32 result followed by the
+ * UTF-8 message. Every int is little-endian.
+ */
+public final class DungeonBinaryFormat {
+
+    public static final String MEDIA_TYPE_VALUE = "application/x-dungeon";
+    public static final MediaType MEDIA_TYPE = MediaType.parseMediaType(MEDIA_TYPE_VALUE);
+    public static final int HEADER_BYTES = 8;
+
+    private static final int CHUNK_BYTES = 8192;
+
+    private DungeonBinaryFormat() {
+    }
+
+    public static DungeonGrid readGrid(InputStream in, long contentLength, long maxCells) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(CHUNK_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(in, buffer, HEADER_BYTES);
+        int rows = buffer.getInt();
+        int columns = buffer.getInt();
+
+        if (rows < 1 || columns < 1) {
+            throw new IllegalArgumentException("Dungeon cannot be empty");
+        }
+        long cellCount = (long) rows * columns;
+        if (cellCount > maxCells) {
+            throw new IllegalArgumentException("Dungeon has " + cellCount + " cells, limit is " + maxCells);
+        }
+        if (contentLength >= 0 && contentLength != HEADER_BYTES + cellCount * Integer.BYTES) {
+            throw new IllegalArgumentException("Body length does not match a " + rows + "x" + columns + " dungeon");
+        }
+
+        int size = (int) cellCount;
+        int[] cells = CellBufferPool.SHARED.acquire(size);
+        int filled = 0;
+        while (filled < size) {
+            int ints = Math.min(size - filled, CHUNK_BYTES / Integer.BYTES);
+            buffer.clear();
+            readFully(in, buffer, ints * Integer.BYTES);
+            buffer.asIntBuffer().get(cells, filled, ints);
+            filled += ints;
+        }
+        return DungeonGrid.pooled(rows, columns, cells, CellBufferPool.SHARED);
+    }
+
+    public static byte[] writeGrid(int[][] dungeon) {
+        DungeonGrid grid = DungeonGrid.of(dungeon);
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + grid.size() * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(grid.getRows()).putInt(grid.getColumns());
+        buffer.asIntBuffer().put(grid.getCells(), 0, grid.size());
+        return buffer.array();
+    }
+
+    public static byte[] writeResponse(DungeonResponse response) {
+        byte[] message = response.getMessage() == null
+            ? new byte[0]
+            : response.getMessage().getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocate(Integer.BYTES + message.length)
+            .order(ByteOrder.LITTLE_ENDIAN)
+            .putInt(response.getResult())
+            .put(message)
+            .array();
+    }
+
+    public static DungeonResponse readResponse(byte[] body) {
+        ByteBuffer buffer = ByteBuffer.wrap(body).order(ByteOrder.LITTLE_ENDIAN);
+        int result = buffer.getInt();
+        String message = new String(body, Integer.BYTES, body.length - Integer.BYTES, StandardCharsets.UTF_8);
+        return new DungeonResponse(result, message);
+    }
+
+    private static void readFully(InputStream in, ByteBuffer buffer, int length) throws IOException {
+        byte[] array = buffer.array();
+        int offset = 0;
+        while (offset < length) {
+            int read = in.read(array, offset, length - offset);
+            if (read < 0) {
+                throw new EOFException("Dungeon body ended early");
+            }
+            offset += read;
+        }
+        buffer.position(0).limit(length);
+    }
+}
@@ -0,0 +1,50 @@
+package com.codegik.dto;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+
+import java.io.EOFException;
+import java.io.IOException;
+
+public class DungeonBinaryMessageConverter extends AbstractHttpMessageConverter<Object> {
+
+    private final long maxCells;
+
+    public DungeonBinaryMessageConverter(long maxCells) {
+        super(DungeonBinaryFormat.MEDIA_TYPE);
+        this.maxCells = maxCells;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return clazz == DungeonRequest.class || clazz == DungeonResponse.class;
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        if (clazz != DungeonRequest.class) {
+            throw new HttpMessageNotReadableException("Cannot read " + clazz.getSimpleName() + " as "
+                + DungeonBinaryFormat.MEDIA_TYPE_VALUE, inputMessage);
+        }
+        long contentLength = inputMessage.getHeaders().getContentLength();
+        try {
+            return new DungeonRequest(DungeonBinaryFormat.readGrid(inputMessage.getBody(), contentLength, maxCells));
+        } catch (IllegalArgumentException | EOFException e) {
+            throw new HttpMessageNotReadableException("Invalid dungeon body: " + e.getMessage(), e, inputMessage);
+        }
+    }
+
+    @Override
+    protected void writeInternal(Object value, HttpOutputMessage outputMessage) throws IOException {
+        if (!(value instanceof DungeonResponse response)) {
+            throw new HttpMessageNotWritableException("Cannot write " + value.getClass().getSimpleName() + " as "
+                + DungeonBinaryFormat.MEDIA_TYPE_VALUE);
+        }
+        byte[] body = DungeonBinaryFormat.writeResponse(response);
+        outputMessage.getHeaders().setContentLength(body.length);
+        outputMessage.getBody().write(body);
+    }
+}
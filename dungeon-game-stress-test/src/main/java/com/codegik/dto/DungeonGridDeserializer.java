@@ -0,0 +1,20 @@
+package com.codegik.dto;
+
+import com.codegik.game.DungeonGrid;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+
+import java.io.IOException;
+
+public class DungeonGridDeserializer extends JsonDeserializer<DungeonGrid> {
+
+    @Override
+    public DungeonGrid deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+        try {
+            return DungeonGridReader.read(parser);
+        } catch (InvalidDungeonException e) {
+            return context.reportInputMismatch(DungeonGrid.class, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.codegik.dto;
+
+import com.codegik.game.CellBufferPool;
+import com.codegik.game.DungeonGrid;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+
+/**
+ * Streams a JSON array of integer rows straight into a flat {@link DungeonGrid}, checking that the
+ * grid is non-empty and rectangular as tokens arrive instead of binding one int[] per row. On an
+ * invalid grid the parser is left after the grid's closing bracket, so a caller reading a list of
+ * grids can report the error and carry on with the next one. Cells go into arrays from the shared
+ * {@link CellBufferPool}, so the returned grid is pooled; they go back to the pool when the grid is
+ * rejected. A grid may hold at most {@link #setMaxCells max cells}, the same bound
+ * dungeon.binary.max-cells puts on the binary format, so the buffer stops doubling there.
+ */
+public final class DungeonGridReader {
+
+    public static final long DEFAULT_MAX_CELLS = 100_000_000;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private static volatile int maxCells = (int) DEFAULT_MAX_CELLS;
+
+    private DungeonGridReader() {
+    }
+
+    // Applied by WebConfig; Jackson creates the deserializers that call read, so there is no bean to inject into
+    public static void setMaxCells(long cells) {
+        maxCells = (int) Math.min(cells, Integer.MAX_VALUE - 8);
+    }
+
+    public static DungeonGrid read(JsonParser parser) throws IOException {
+        if (!parser.isExpectedStartArrayToken()) {
+            throw invalid(parser, 0, "Dungeon must be an array of rows");
+        }
+
+        CellBufferPool pool = CellBufferPool.SHARED;
+        int limit = maxCells;
+        int[] cells = pool.acquire(Math.min(INITIAL_CAPACITY, limit));
+        int size = 0;
+        int rows = 0;
+        int columns = -1;
+
+        try {
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token != JsonToken.START_ARRAY) {
+                    throw invalid(parser, 1, "Each dungeon row must be an array");
+                }
+
+                int rowStart = size;
+                while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                    if (token != JsonToken.VALUE_NUMBER_INT) {
+                        throw invalid(parser, 2, "Dungeon cells must be integers");
+                    }
+                    if (size == limit) {
+                        throw invalid(parser, 2, "Dungeon has more than " + limit + " cells");
+                    }
+                    if (size == cells.length) {
+                        int[] grown = pool.acquire((int) Math.min(2L * size, limit));
+                        System.arraycopy(cells, 0, grown, 0, size);
+                        pool.release(cells);
+                        cells = grown;
+                    }
+                    cells[size++] = parser.getIntValue();
+                }
+
+                int width = size - rowStart;
+                if (width == 0) {
+                    throw skipped(parser, 1, "Dungeon rows cannot be empty");
+                }
+                if (columns == -1) {
+                    columns = width;
+                } else if (width != columns) {
+                    throw skipped(parser, 1, String.format(
+                        "Dungeon rows must all have the same length: row %d has %d cells, expected %d", rows, width, columns));
+                }
+                rows++;
+            }
+
+            if (rows == 0) {
+                throw new InvalidDungeonException("Dungeon cannot be empty");
+            }
+        } catch (IOException | RuntimeException e) {
+            pool.release(cells);
+            throw e;
+        }
+        return DungeonGrid.pooled(rows, columns, cells, pool);
+    }
+
+    // The offending token is current; skip it (and its children) before closing open arrays.
+    private static InvalidDungeonException invalid(JsonParser parser, int depth, String message) throws IOException {
+        parser.skipChildren();
+        return skipped(parser, depth, message);
+    }
+
+    private static InvalidDungeonException skipped(JsonParser parser, int depth, String message) throws IOException {
+        while (depth > 0) {
+            JsonToken token = parser.nextToken();
+            if (token == null) {
+                break;
+            }
+            if (token.isStructStart()) {
+                parser.skipChildren();
+            } else if (token.isStructEnd()) {
+                depth--;
+            }
+        }
+        return new InvalidDungeonException(message);
+    }
+}
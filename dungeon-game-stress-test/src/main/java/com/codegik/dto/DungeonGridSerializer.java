@@ -0,0 +1,22 @@
+package com.codegik.dto;
+
+import com.codegik.game.DungeonGrid;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+
+import java.io.IOException;
+
+public class DungeonGridSerializer extends JsonSerializer<DungeonGrid> {
+
+    @Override
+    public void serialize(DungeonGrid grid, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        int[] cells = grid.getCells();
+        int columns = grid.getColumns();
+        generator.writeStartArray();
+        for (int i = 0; i < grid.getRows(); i++) {
+            generator.writeArray(cells, i * columns, columns);
+        }
+        generator.writeEndArray();
+    }
+}
@@ -0,0 +1,79 @@
+package com.codegik.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.Instant;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class DungeonJobResponse {
+
+    private final String id;
+    private final JobStatus status;
+    private final int rows;
+    private final int columns;
+    private final int rowsDone;
+    private final Integer result;
+    private final Long resultId;
+    private final String error;
+    private final Instant submittedAt;
+    private final Instant finishedAt;
+
+    public DungeonJobResponse(String id, JobStatus status, int rows, int columns, int rowsDone,
+                              Integer result, Long resultId, String error,
+                              Instant submittedAt, Instant finishedAt) {
+        this.id = id;
+        this.status = status;
+        this.rows = rows;
+        this.columns = columns;
+        this.rowsDone = rowsDone;
+        this.result = result;
+        this.resultId = resultId;
+        this.error = error;
+        this.submittedAt = submittedAt;
+        this.finishedAt = finishedAt;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public JobStatus getStatus() {
+        return status;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getRowsDone() {
+        return rowsDone;
+    }
+
+    public double getProgress() {
+        return rows == 0 ? 0.0 : (double) rowsDone / rows;
+    }
+
+    public Integer getResult() {
+        return result;
+    }
+
+    public Long getResultId() {
+        return resultId;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public Instant getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+}
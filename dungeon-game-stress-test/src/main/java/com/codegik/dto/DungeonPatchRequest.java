@@ -0,0 +1,29 @@
+package com.codegik.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.List;
+
+public class DungeonPatchRequest {
+
+    @NotNull(message = "Cells cannot be null")
+    @NotEmpty(message = "Cells cannot be empty")
+    private List<@Valid @NotNull CellPatch> cells;
+
+    public DungeonPatchRequest() {
+    }
+
+    public DungeonPatchRequest(List<CellPatch> cells) {
+        this.cells = cells;
+    }
+
+    public List<CellPatch> getCells() {
+        return cells;
+    }
+
+    public void setCells(List<CellPatch> cells) {
+        this.cells = cells;
+    }
+}
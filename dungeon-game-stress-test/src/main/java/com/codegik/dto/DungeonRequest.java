@@ -1,26 +1,34 @@
 package com.codegik.dto;
 
+import com.codegik.game.DungeonGrid;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import jakarta.validation.constraints.NotNull;
-import jakarta.validation.constraints.NotEmpty;
 
 public class DungeonRequest {
 
+    // Emptiness and rectangular rows are checked by DungeonGridDeserializer while parsing
     @NotNull(message = "Dungeon cannot be null")
-    @NotEmpty(message = "Dungeon cannot be empty")
-    private int[][] dungeon;
+    @JsonDeserialize(using = DungeonGridDeserializer.class)
+    @JsonSerialize(using = DungeonGridSerializer.class)
+    private DungeonGrid dungeon;
 
     public DungeonRequest() {
     }
 
     public DungeonRequest(int[][] dungeon) {
+        this(DungeonGrid.of(dungeon));
+    }
+
+    public DungeonRequest(DungeonGrid dungeon) {
         this.dungeon = dungeon;
     }
 
-    public int[][] getDungeon() {
+    public DungeonGrid getDungeon() {
         return dungeon;
     }
 
-    public void setDungeon(int[][] dungeon) {
+    public void setDungeon(DungeonGrid dungeon) {
         this.dungeon = dungeon;
     }
 }
@@ -1,9 +1,16 @@
 package com.codegik.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 public class DungeonResponse {
 
     private int result;
     private String message;
+    // Base64 of one bit per move, 1 = down and 0 = right, most significant bit first
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String path;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer pathLength;
 
     public DungeonResponse() {
     }
@@ -28,4 +35,20 @@ public class DungeonResponse {
     public void setMessage(String message) {
         this.message = message;
     }
+
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    public Integer getPathLength() {
+        return pathLength;
+    }
+
+    public void setPathLength(Integer pathLength) {
+        this.pathLength = pathLength;
+    }
 }
@@ -0,0 +1,62 @@
+package com.codegik.dto;
+
+public class DungeonSessionResponse {
+
+    private String id;
+    private int rows;
+    private int columns;
+    private int result;
+    private long recomputedCells;
+
+    public DungeonSessionResponse() {
+    }
+
+    public DungeonSessionResponse(String id, int rows, int columns, int result, long recomputedCells) {
+        this.id = id;
+        this.rows = rows;
+        this.columns = columns;
+        this.result = result;
+        this.recomputedCells = recomputedCells;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public void setRows(int rows) {
+        this.rows = rows;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public void setColumns(int columns) {
+        this.columns = columns;
+    }
+
+    public int getResult() {
+        return result;
+    }
+
+    public void setResult(int result) {
+        this.result = result;
+    }
+
+    // Dp cells re-solved by the request that produced this response
+    public long getRecomputedCells() {
+        return recomputedCells;
+    }
+
+    public void setRecomputedCells(long recomputedCells) {
+        this.recomputedCells = recomputedCells;
+    }
+}
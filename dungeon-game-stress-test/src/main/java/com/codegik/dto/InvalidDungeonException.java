@@ -0,0 +1,8 @@
+package com.codegik.dto;
+
+public class InvalidDungeonException extends IllegalArgumentException {
+
+    public InvalidDungeonException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package com.codegik.dto;
+
+public enum JobStatus {
+    QUEUED,
+    RUNNING,
+    SUCCEEDED,
+    FAILED
+}
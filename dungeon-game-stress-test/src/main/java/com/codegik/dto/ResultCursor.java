@@ -0,0 +1,50 @@
+package com.codegik.dto;
+
+import com.codegik.entity.DungeonResult;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor for /results pages: the (created_at, id) of the last row already returned.
+ */
+public final class ResultCursor {
+
+    private final LocalDateTime createdAt;
+    private final Long id;
+
+    public ResultCursor(LocalDateTime createdAt, Long id) {
+        this.createdAt = createdAt;
+        this.id = id;
+    }
+
+    public static ResultCursor after(DungeonResult result) {
+        return new ResultCursor(result.getCreatedAt(), result.getId());
+    }
+
+    public static ResultCursor decode(String cursor) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = value.lastIndexOf('|');
+            return new ResultCursor(LocalDateTime.parse(value.substring(0, separator)),
+                Long.parseLong(value.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid results cursor", e);
+        }
+    }
+
+    public String encode() {
+        String value = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+}
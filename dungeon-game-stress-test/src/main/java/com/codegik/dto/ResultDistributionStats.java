@@ -0,0 +1,104 @@
+package com.codegik.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class ResultDistributionStats {
+
+    private final String dimensionBucket;
+    private final LocalDateTime from;
+    private final LocalDateTime to;
+    private final long count;
+    private final long min;
+    private final long max;
+    private final double mean;
+    private final long p50;
+    private final long p90;
+    private final long p99;
+    private final List<Bin> histogram;
+
+    public ResultDistributionStats(String dimensionBucket, LocalDateTime from, LocalDateTime to, long count, long min,
+                                   long max, double mean, long p50, long p90, long p99, List<Bin> histogram) {
+        this.dimensionBucket = dimensionBucket;
+        this.from = from;
+        this.to = to;
+        this.count = count;
+        this.min = min;
+        this.max = max;
+        this.mean = mean;
+        this.p50 = p50;
+        this.p90 = p90;
+        this.p99 = p99;
+        this.histogram = histogram;
+    }
+
+    public String getDimensionBucket() {
+        return dimensionBucket;
+    }
+
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    public LocalDateTime getTo() {
+        return to;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getMin() {
+        return min;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    public long getP50() {
+        return p50;
+    }
+
+    public long getP90() {
+        return p90;
+    }
+
+    public long getP99() {
+        return p99;
+    }
+
+    public List<Bin> getHistogram() {
+        return histogram;
+    }
+
+    // Results from lower to upper, both inclusive
+    public static class Bin {
+
+        private final long lower;
+        private final long upper;
+        private final long count;
+
+        public Bin(long lower, long upper, long count) {
+            this.lower = lower;
+            this.upper = upper;
+            this.count = count;
+        }
+
+        public long getLower() {
+            return lower;
+        }
+
+        public long getUpper() {
+            return upper;
+        }
+
+        public long getCount() {
+            return count;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.codegik.entity;
+
+import com.codegik.game.DungeonGrid;
+
+/**
+ * Encodes a grid as the compact JSON text returned as a result's dungeonData. Writes the same
+ * output as ObjectMapper.writeValueAsString(int[][]) without building a nested array first.
+ */
+public final class DungeonDataCodec {
+
+    private DungeonDataCodec() {
+    }
+
+    public static String encode(DungeonGrid grid) {
+        int rows = grid.getRows();
+        int columns = grid.getColumns();
+        int[] cells = grid.getCells();
+        StringBuilder json = new StringBuilder((int) Math.min(Integer.MAX_VALUE - 8, rows * (columns * 4L + 2) + 2));
+
+        json.append('[');
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append('[');
+            int base = i * columns;
+            for (int j = 0; j < columns; j++) {
+                if (j > 0) {
+                    json.append(',');
+                }
+                json.append(cells[base + j]);
+            }
+            json.append(']');
+        }
+        json.append(']');
+
+        return json.toString();
+    }
+}
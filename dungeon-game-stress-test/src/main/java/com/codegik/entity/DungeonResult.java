@@ -1,6 +1,10 @@
 package com.codegik.entity;
 
+import com.codegik.game.DungeonGrid;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
 import org.springframework.data.relational.core.mapping.Column;
 import org.springframework.data.relational.core.mapping.Table;
 
@@ -12,8 +16,15 @@ public class DungeonResult {
     @Id
     private Long id;
 
+    // Left out of summary listings, see DungeonResultRepository.findFirstSummaryPage
     @Column("dungeon_data")
-    private String dungeonData;
+    @JsonIgnore
+    private byte[] encodedDungeon;
+
+    // Decoded from encodedDungeon on first use
+    @Transient
+    @JsonIgnore
+    private DungeonGrid dungeon;
 
     @Column("result")
     private Integer result;
@@ -31,9 +42,9 @@ public class DungeonResult {
         this.createdAt = LocalDateTime.now();
     }
 
-    public DungeonResult(String dungeonData, Integer result, Integer rows, Integer columns) {
+    public DungeonResult(byte[] encodedDungeon, Integer result, Integer rows, Integer columns) {
         this();
-        this.dungeonData = dungeonData;
+        this.encodedDungeon = encodedDungeon;
         this.result = result;
         this.rows = rows;
         this.columns = columns;
@@ -47,12 +58,29 @@ public class DungeonResult {
         this.id = id;
     }
 
-    public String getDungeonData() {
-        return dungeonData;
+    @JsonIgnore
+    public byte[] getEncodedDungeon() {
+        return encodedDungeon;
+    }
+
+    public void setEncodedDungeon(byte[] encodedDungeon) {
+        this.encodedDungeon = encodedDungeon;
+        this.dungeon = null;
     }
 
-    public void setDungeonData(String dungeonData) {
-        this.dungeonData = dungeonData;
+    @JsonIgnore
+    public DungeonGrid getDungeon() {
+        if (dungeon == null && encodedDungeon != null) {
+            dungeon = DungeonStorageCodec.decode(encodedDungeon);
+        }
+        return dungeon;
+    }
+
+    // Kept as the JSON text clients got when the column held it verbatim
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public String getDungeonData() {
+        DungeonGrid grid = getDungeon();
+        return grid == null ? null : DungeonDataCodec.encode(grid);
     }
 
     public Integer getResult() {
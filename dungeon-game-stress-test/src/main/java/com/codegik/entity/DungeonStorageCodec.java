@@ -0,0 +1,168 @@
+package com.codegik.entity;
+
+import com.codegik.game.DungeonGrid;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Binary layout of dungeons.dungeon_data. A format byte is followed by rows, columns and
+ * every cell in row-major order, each as a varint; cells are zigzag encoded first so small
+ * negative values stay one byte. Payloads of at least {@link #DEFLATE_MIN_BYTES} are deflated when
+ * that makes them smaller. Rows written before the column became BYTEA hold the old JSON text,
+ * recognised by its leading '['.
+ */
+public final class DungeonStorageCodec {
+
+    static final byte FORMAT_VARINT = 1;
+    static final byte FORMAT_DEFLATE = 2;
+    static final int DEFLATE_MIN_BYTES = 512;
+
+    private DungeonStorageCodec() {
+    }
+
+    public static byte[] encode(DungeonGrid grid) {
+        int[] cells = grid.getCells();
+        int size = grid.size();
+        byte[] payload = new byte[Math.toIntExact(1 + 5 * 2 + 5L * size)];
+        payload[0] = FORMAT_VARINT;
+        int pos = writeVarint(payload, 1, grid.getRows());
+        pos = writeVarint(payload, pos, grid.getColumns());
+        for (int i = 0; i < size; i++) {
+            int cell = cells[i];
+            pos = writeVarint(payload, pos, (cell << 1) ^ (cell >> 31));
+        }
+
+        if (pos - 1 >= DEFLATE_MIN_BYTES) {
+            byte[] deflated = deflate(payload, pos);
+            if (deflated != null) {
+                return deflated;
+            }
+        }
+        return Arrays.copyOf(payload, pos);
+    }
+
+    public static DungeonGrid decode(byte[] data) {
+        if (data == null || data.length == 0) {
+            throw new IllegalArgumentException("Empty dungeon data");
+        }
+        return switch (data[0]) {
+            case FORMAT_VARINT -> decodeVarints(data, 1, data.length);
+            case FORMAT_DEFLATE -> decodeVarints(inflate(data), 0, -1);
+            case '[' -> decodeLegacyJson(data);
+            default -> throw new IllegalArgumentException("Unknown dungeon data format " + data[0]);
+        };
+    }
+
+    // Deflated layout: format byte, varint length of the raw varint section, then the deflate stream.
+    private static byte[] deflate(byte[] payload, int length) {
+        int rawLength = length - 1;
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(payload, 1, rawLength);
+            deflater.finish();
+            byte[] out = new byte[1 + 5 + rawLength];
+            out[0] = FORMAT_DEFLATE;
+            int start = writeVarint(out, 1, rawLength);
+            int written = deflater.deflate(out, start, out.length - start);
+            if (!deflater.finished()) {
+                return null;
+            }
+            return Arrays.copyOf(out, start + written);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] data) {
+        int[] pos = {1};
+        int rawLength = readVarint(data, pos);
+        byte[] raw = new byte[rawLength];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data, pos[0], data.length - pos[0]);
+            int read = inflater.inflate(raw);
+            if (read != rawLength || !inflater.finished()) {
+                throw new IllegalArgumentException("Truncated dungeon data");
+            }
+            return raw;
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Corrupt dungeon data", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static DungeonGrid decodeVarints(byte[] data, int offset, int end) {
+        int[] pos = {offset};
+        int rows = readVarint(data, pos);
+        int columns = readVarint(data, pos);
+        int[] cells = new int[Math.multiplyExact(rows, columns)];
+        for (int i = 0; i < cells.length; i++) {
+            int zigzag = readVarint(data, pos);
+            cells[i] = (zigzag >>> 1) ^ -(zigzag & 1);
+        }
+        if (end >= 0 && pos[0] != end) {
+            throw new IllegalArgumentException("Trailing bytes in dungeon data");
+        }
+        return new DungeonGrid(rows, columns, cells);
+    }
+
+    private static DungeonGrid decodeLegacyJson(byte[] data) {
+        int rows = 0;
+        int count = 0;
+        int[] cells = new int[16];
+        int depth = 0;
+        for (int i = 0; i < data.length; i++) {
+            byte b = data[i];
+            if (b == '[') {
+                depth++;
+                if (depth == 2) {
+                    rows++;
+                }
+            } else if (b == ']') {
+                depth--;
+            } else if (b == '-' || (b >= '0' && b <= '9')) {
+                int start = i;
+                while (i + 1 < data.length && data[i + 1] >= '0' && data[i + 1] <= '9') {
+                    i++;
+                }
+                if (count == cells.length) {
+                    cells = Arrays.copyOf(cells, count * 2);
+                }
+                cells[count++] = Integer.parseInt(new String(data, start, i - start + 1, StandardCharsets.US_ASCII));
+            }
+        }
+        if (rows == 0 || count % rows != 0) {
+            throw new IllegalArgumentException("Malformed legacy dungeon data");
+        }
+        return new DungeonGrid(rows, count / rows, cells);
+    }
+
+    private static int writeVarint(byte[] out, int pos, int value) {
+        while ((value & ~0x7F) != 0) {
+            out[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out[pos++] = (byte) value;
+        return pos;
+    }
+
+    private static int readVarint(byte[] data, int[] pos) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            if (pos[0] >= data.length) {
+                throw new IllegalArgumentException("Truncated dungeon data");
+            }
+            byte b = data[pos[0]++];
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint in dungeon data");
+    }
+}
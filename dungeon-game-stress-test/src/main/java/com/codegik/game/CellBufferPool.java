@@ -0,0 +1,108 @@
+package com.codegik.game;
+
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Reusable cell arrays for request grids, so steady-state parsing does not allocate a fresh
+ * grid-sized array per request. Capacities come in four size classes per power of two (1.25x,
+ * 1.5x, 1.75x and 2x), which keeps a pooled buffer within 25% of the grid it holds. The total
+ * number of pooled cells is bounded; releases beyond the bound are left to the garbage collector.
+ */
+public final class CellBufferPool {
+
+    public static final long DEFAULT_MAX_POOLED_CELLS = 16L * 1024 * 1024;
+
+    // Parsers run inside Jackson and the message converters without injection, so they share this one
+    public static final CellBufferPool SHARED = new CellBufferPool(DEFAULT_MAX_POOLED_CELLS);
+
+    private static final int MIN_SHIFT = 6;
+    private static final int MAX_SHIFT = 29;
+    private static final int CLASSES_PER_SHIFT = 4;
+
+    private final ConcurrentLinkedDeque<int[]>[] classes;
+    private final AtomicLong pooledCells = new AtomicLong();
+    private volatile long maxPooledCells;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    @SuppressWarnings("unchecked")
+    public CellBufferPool(long maxPooledCells) {
+        this.maxPooledCells = maxPooledCells;
+        this.classes = new ConcurrentLinkedDeque[1 + (MAX_SHIFT - MIN_SHIFT) * CLASSES_PER_SHIFT];
+        for (int i = 0; i < classes.length; i++) {
+            classes[i] = new ConcurrentLinkedDeque<>();
+        }
+    }
+
+    public void setMaxPooledCells(long maxPooledCells) {
+        this.maxPooledCells = maxPooledCells;
+    }
+
+    /**
+     * Returns an array of at least {@code minCapacity} ints. Its contents are unspecified.
+     */
+    public int[] acquire(int minCapacity) {
+        int sizeClass = classOf(minCapacity);
+        if (sizeClass >= classes.length) {
+            misses.increment();
+            return new int[minCapacity];
+        }
+        int[] buffer = classes[sizeClass].pollFirst();
+        if (buffer != null) {
+            pooledCells.addAndGet(-buffer.length);
+            hits.increment();
+            return buffer;
+        }
+        misses.increment();
+        return new int[capacityOf(sizeClass)];
+    }
+
+    // Arrays that did not come from acquire are ignored unless their length happens to match a class
+    public void release(int[] buffer) {
+        int length = buffer.length;
+        int sizeClass = classOf(length);
+        if (sizeClass >= classes.length || capacityOf(sizeClass) != length) {
+            return;
+        }
+        if (pooledCells.addAndGet(length) > maxPooledCells) {
+            pooledCells.addAndGet(-length);
+            return;
+        }
+        classes[sizeClass].offerFirst(buffer);
+    }
+
+    public long getPooledCells() {
+        return pooledCells.get();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    // Class 0 is 2^MIN_SHIFT; after that each octave (2^k, 2^(k+1)] is split into four classes
+    static int classOf(int capacity) {
+        if (capacity <= 1 << MIN_SHIFT) {
+            return 0;
+        }
+        int shift = 31 - Integer.numberOfLeadingZeros(capacity - 1);
+        int step = 1 << (shift - 2);
+        int offset = (capacity - (1 << shift) + step - 1) / step - 1;
+        return 1 + (shift - MIN_SHIFT) * CLASSES_PER_SHIFT + offset;
+    }
+
+    static int capacityOf(int sizeClass) {
+        if (sizeClass == 0) {
+            return 1 << MIN_SHIFT;
+        }
+        int shift = MIN_SHIFT + (sizeClass - 1) / CLASSES_PER_SHIFT;
+        int offset = (sizeClass - 1) % CLASSES_PER_SHIFT;
+        return (1 << shift) + (offset + 1) * (1 << (shift - 2));
+    }
+}
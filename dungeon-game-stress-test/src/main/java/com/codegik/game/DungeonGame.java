@@ -1,12 +1,94 @@
 package com.codegik.game;
 
 import java.util.Arrays;
+import java.util.function.IntConsumer;
 
-public class DungeonGame {
+public class DungeonGame implements DungeonSolver {
 
-    public int calculateMinimumHP(int[][] dungeon) {
-        int m = dungeon.length;
-        int n = dungeon[0].length;
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+    // Columns per block when a wide grid is swept along its rows; the block's dp line stays in L1
+    private static final int WIDE_BLOCK_COLUMNS = 256;
+
+    private final SolverMode mode;
+    private final WavefrontSolver wavefrontSolver;
+    private final long parallelThreshold;
+    private final DungeonSolver vectorizedSolver;
+
+    public DungeonGame() {
+        this(SolverMode.FULL_TABLE);
+    }
+
+    public DungeonGame(SolverMode mode) {
+        this(mode, null, Long.MAX_VALUE);
+    }
+
+    public DungeonGame(SolverMode mode, WavefrontSolver wavefrontSolver, long parallelThreshold) {
+        this.mode = mode;
+        this.wavefrontSolver = wavefrontSolver;
+        this.parallelThreshold = parallelThreshold;
+        this.vectorizedSolver = mode == SolverMode.VECTORIZED ? createVectorizedSolver() : null;
+    }
+
+    // The Vector API lives in an incubator module that is only resolved with --add-modules.
+    private static DungeonSolver createVectorizedSolver() {
+        return ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent() ? new VectorizedSolver() : null;
+    }
+
+    public SolverMode getMode() {
+        return mode;
+    }
+
+    public boolean isVectorized() {
+        return vectorizedSolver != null;
+    }
+
+    @Override
+    public int calculateMinimumHP(DungeonGrid grid) {
+        if (wavefrontSolver != null && grid.size() >= parallelThreshold) {
+            return wavefrontSolver.calculateMinimumHP(grid);
+        }
+        return switch (mode) {
+            case FULL_TABLE -> calculateWithFullTable(grid);
+            case ROLLING_ROW -> calculateWithRollingRow(grid);
+            case VECTORIZED -> vectorizedSolver != null
+                ? vectorizedSolver.calculateMinimumHP(grid)
+                : calculateWithRollingRow(grid);
+        };
+    }
+
+    /**
+     * Solves while reporting the number of rows finished so far, for long-running jobs. Grids at or
+     * above the parallel threshold go through the wavefront solver; smaller ones use a bottom-up
+     * rolling row regardless of the configured mode, since that is the order progress is counted in.
+     */
+    public int calculateMinimumHP(DungeonGrid grid, IntConsumer rowsDone) {
+        if (wavefrontSolver != null && grid.size() >= parallelThreshold) {
+            return wavefrontSolver.calculateMinimumHP(grid, rowsDone);
+        }
+
+        int m = grid.getRows();
+        int n = grid.getColumns();
+        int[] cells = grid.getCells();
+        int[] dp = new int[n + 1];
+        Arrays.fill(dp, Integer.MAX_VALUE);
+        dp[n - 1] = 1;
+
+        for (int i = m - 1; i >= 0; i--) {
+            int base = i * n;
+            for (int j = n - 1; j >= 0; j--) {
+                int minHealth = Math.min(dp[j], dp[j + 1]) - cells[base + j];
+                dp[j] = Math.max(1, minHealth);
+            }
+            rowsDone.accept(m - i);
+        }
+
+        return dp[0];
+    }
+
+    private int calculateWithFullTable(DungeonGrid grid) {
+        int m = grid.getRows();
+        int n = grid.getColumns();
+        int[] cells = grid.getCells();
         int[][] dp = new int[m + 1][n + 1];
 
         for (int[] row : dp) {
@@ -18,11 +100,61 @@ public class DungeonGame {
 
         for (int i = m - 1; i >= 0; i--) {
             for (int j = n - 1; j >= 0; j--) {
-                int minHealth = Math.min(dp[i + 1][j], dp[i][j + 1]) - dungeon[i][j];
+                int minHealth = Math.min(dp[i + 1][j], dp[i][j + 1]) - cells[i * n + j];
                 dp[i][j] = Math.max(1, minHealth);
             }
         }
 
         return dp[0][0];
     }
-}
\ No newline at end of file
+
+    // Keeps a single dp line along the shorter dimension, so memory is O(min(m, n)) plus one block.
+    private int calculateWithRollingRow(DungeonGrid grid) {
+        int m = grid.getRows();
+        int n = grid.getColumns();
+        int[] cells = grid.getCells();
+
+        if (n <= m) {
+            int[] dp = new int[n + 1];
+            Arrays.fill(dp, Integer.MAX_VALUE);
+            dp[n - 1] = 1;
+
+            for (int i = m - 1; i >= 0; i--) {
+                int base = i * n;
+                for (int j = n - 1; j >= 0; j--) {
+                    int minHealth = Math.min(dp[j], dp[j + 1]) - cells[base + j];
+                    dp[j] = Math.max(1, minHealth);
+                }
+            }
+
+            return dp[0];
+        }
+
+        // Wide grid: sweep blocks of columns right to left, scanning each block row-major. edge[i]
+        // carries dp of the block's leftmost column into the next block; below holds the row under i.
+        int[] edge = new int[m];
+        Arrays.fill(edge, Integer.MAX_VALUE);
+        int[] below = new int[Math.min(WIDE_BLOCK_COLUMNS, n)];
+
+        for (int end = n; end > 0; end -= WIDE_BLOCK_COLUMNS) {
+            int start = Math.max(0, end - WIDE_BLOCK_COLUMNS);
+            Arrays.fill(below, Integer.MAX_VALUE);
+            if (end == n) {
+                below[n - 1 - start] = 1;
+            }
+
+            for (int i = m - 1; i >= 0; i--) {
+                int base = i * n;
+                int right = edge[i];
+                for (int j = end - 1; j >= start; j--) {
+                    int minHealth = Math.min(below[j - start], right) - cells[base + j];
+                    right = Math.max(1, minHealth);
+                    below[j - start] = right;
+                }
+                edge[i] = right;
+            }
+        }
+
+        return edge[0];
+    }
+}
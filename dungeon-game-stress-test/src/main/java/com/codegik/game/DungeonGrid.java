@@ -0,0 +1,93 @@
+package com.codegik.game;
+
+import java.util.Arrays;
+
+/**
+ * Rectangular dungeon stored row-major in a single flat array. The backing array may be longer
+ * than rows * columns (e.g. a parse buffer), only the leading cells are used. Grids parsed from a
+ * request borrow their array from a {@link CellBufferPool}; whoever ends up owning the grid calls
+ * {@link #release()} once nothing reads it any more, and keeps a {@link #copy()} if it must
+ * outlive that.
+ */
+public final class DungeonGrid {
+
+    private final int rows;
+    private final int columns;
+    private final int[] cells;
+    private CellBufferPool pool;
+
+    public DungeonGrid(int rows, int columns, int[] cells) {
+        if (rows < 1 || columns < 1) {
+            throw new IllegalArgumentException("Dungeon cannot be empty");
+        }
+        if ((long) rows * columns > cells.length) {
+            throw new IllegalArgumentException("Dungeon has fewer cells than rows * columns");
+        }
+        this.rows = rows;
+        this.columns = columns;
+        this.cells = cells;
+    }
+
+    public static DungeonGrid pooled(int rows, int columns, int[] cells, CellBufferPool pool) {
+        DungeonGrid grid = new DungeonGrid(rows, columns, cells);
+        grid.pool = pool;
+        return grid;
+    }
+
+    public static DungeonGrid of(int[][] dungeon) {
+        if (dungeon == null || dungeon.length == 0 || dungeon[0] == null || dungeon[0].length == 0) {
+            throw new IllegalArgumentException("Dungeon cannot be empty");
+        }
+        int rows = dungeon.length;
+        int columns = dungeon[0].length;
+        int[] cells = new int[Math.multiplyExact(rows, columns)];
+        for (int i = 0; i < rows; i++) {
+            if (dungeon[i] == null || dungeon[i].length != columns) {
+                throw new IllegalArgumentException("Dungeon rows must all have the same length");
+            }
+            System.arraycopy(dungeon[i], 0, cells, i * columns, columns);
+        }
+        return new DungeonGrid(rows, columns, cells);
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int size() {
+        return rows * columns;
+    }
+
+    public int get(int row, int column) {
+        return cells[row * columns + column];
+    }
+
+    public int[] getCells() {
+        return cells;
+    }
+
+    public DungeonGrid copy() {
+        return new DungeonGrid(rows, columns, Arrays.copyOf(cells, size()));
+    }
+
+    // Returns a pooled array for reuse; the grid must not be read afterwards. No-op for unpooled grids.
+    public void release() {
+        CellBufferPool owner = pool;
+        if (owner != null) {
+            pool = null;
+            owner.release(cells);
+        }
+    }
+
+    public int[][] toArray() {
+        int[][] dungeon = new int[rows][];
+        for (int i = 0; i < rows; i++) {
+            dungeon[i] = Arrays.copyOfRange(cells, i * columns, (i + 1) * columns);
+        }
+        return dungeon;
+    }
+}
@@ -0,0 +1,125 @@
+package com.codegik.game;
+
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * An optimal route from the top-left to the bottom-right cell, stored as one bit per move
+ * (1 = down, 0 = right), most significant bit first. Every route has rows + columns - 2 moves.
+ */
+public final class DungeonPath {
+
+    private final int minimumHP;
+    private final int length;
+    private final byte[] moves;
+
+    private DungeonPath(int minimumHP, int length, byte[] moves) {
+        this.minimumHP = minimumHP;
+        this.length = length;
+        this.moves = moves;
+    }
+
+    /**
+     * Finds the route without keeping the whole dp table. The backward pass keeps the dp line of
+     * every k-th row, k = ceil(sqrt(rows)), then the forward walk recomputes one block of k rows at
+     * a time from the checkpoint below it. Rows run along the longer side, so memory is
+     * O(min(m, n) * sqrt(max(m, n))) at the cost of solving the grid twice.
+     */
+    public static DungeonPath find(DungeonGrid grid) {
+        boolean transposed = grid.getColumns() > grid.getRows();
+        int m = transposed ? grid.getColumns() : grid.getRows();
+        int n = transposed ? grid.getRows() : grid.getColumns();
+        int[] cells = grid.getCells();
+        int stride = grid.getColumns();
+        int k = (int) Math.ceil(Math.sqrt(m));
+
+        // checkpoints[c] holds the dp line of row c * k; the line below the last row is implicit
+        int[][] checkpoints = new int[(m + k - 1) / k][];
+        int[] dp = bottomLine(n);
+        for (int i = m - 1; i >= 0; i--) {
+            relaxRow(dp, cells, stride, transposed, i, n);
+            if (i % k == 0) {
+                checkpoints[i / k] = dp.clone();
+            }
+        }
+
+        int length = m + n - 2;
+        byte[] moves = new byte[(length + 7) / 8];
+        int[][] block = new int[k + 1][];
+        int move = 0;
+        int j = 0;
+        for (int c = 0; c < checkpoints.length; c++) {
+            int top = c * k;
+            int bottom = Math.min(top + k, m);
+            block[bottom - top] = bottom == m ? bottomLine(n) : checkpoints[c + 1];
+            for (int i = bottom - 1; i > top; i--) {
+                int[] line = block[i - top + 1].clone();
+                relaxRow(line, cells, stride, transposed, i, n);
+                block[i - top] = line;
+            }
+            block[0] = checkpoints[c];
+
+            for (int i = top; i < bottom; i++) {
+                int[] here = block[i - top];
+                int[] below = block[i - top + 1];
+                // Go right only while it is strictly cheaper than going down; ties go down
+                while (j < n - 1 && (i == m - 1 || here[j + 1] < below[j])) {
+                    move++;
+                    j++;
+                }
+                if (i < m - 1) {
+                    moves[move >>> 3] |= (byte) (0x80 >>> (move & 7));
+                    move++;
+                }
+            }
+        }
+        if (transposed) {
+            // Bits were written as "down in the transposed grid"; flip them back to the caller's axes
+            for (int b = 0; b < moves.length; b++) {
+                moves[b] = (byte) ~moves[b];
+            }
+            clearPadding(moves, length);
+        }
+        return new DungeonPath(checkpoints[0][0], length, moves);
+    }
+
+    private static int[] bottomLine(int n) {
+        int[] line = new int[n + 1];
+        Arrays.fill(line, Integer.MAX_VALUE);
+        line[n - 1] = 1;
+        return line;
+    }
+
+    private static void relaxRow(int[] dp, int[] cells, int stride, boolean transposed, int i, int n) {
+        for (int j = n - 1; j >= 0; j--) {
+            int cell = transposed ? cells[j * stride + i] : cells[i * stride + j];
+            dp[j] = Math.max(1, Math.min(dp[j], dp[j + 1]) - cell);
+        }
+    }
+
+    private static void clearPadding(byte[] moves, int length) {
+        if ((length & 7) != 0) {
+            moves[moves.length - 1] &= (byte) (0xFF << (8 - (length & 7)));
+        }
+    }
+
+    public int getMinimumHP() {
+        return minimumHP;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public boolean isDown(int move) {
+        return (moves[move >>> 3] & (0x80 >>> (move & 7))) != 0;
+    }
+
+    public byte[] getMoves() {
+        return moves.clone();
+    }
+
+    public String encode() {
+        return Base64.getEncoder().encodeToString(moves);
+    }
+}
@@ -0,0 +1,10 @@
+package com.codegik.game;
+
+public interface DungeonSolver {
+
+    int calculateMinimumHP(DungeonGrid grid);
+
+    default int calculateMinimumHP(int[][] dungeon) {
+        return calculateMinimumHP(DungeonGrid.of(dungeon));
+    }
+}
@@ -0,0 +1,137 @@
+package com.codegik.game;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Dungeon that keeps its full dp table so cell edits can be re-solved in place. dp[i][j] depends
+ * only on cells below and to the right, so an edit at (r, c) can only change dp cells in rows
+ * 0..r and columns 0..c. Each row is re-solved from its dirty columns leftwards and stops at the
+ * first unchanged value left of everything that changed in the row below. A single-cell edit whose
+ * effect is absorbed nearby touches a handful of cells instead of all m * n.
+ *
+ * Not thread-safe; callers serialize edits per instance.
+ */
+public final class IncrementalDungeon {
+
+    private final int rows;
+    private final int columns;
+    private final int width;
+    private final int[] cells;
+    // (rows + 1) x (columns + 1), row-major, with the same sentinels as the full-table solver
+    private final int[] dp;
+    private long recomputedCells;
+
+    public IncrementalDungeon(DungeonGrid grid) {
+        this.rows = grid.getRows();
+        this.columns = grid.getColumns();
+        this.width = columns + 1;
+        this.cells = Arrays.copyOf(grid.getCells(), grid.size());
+        this.dp = new int[(rows + 1) * width];
+
+        Arrays.fill(dp, Integer.MAX_VALUE);
+        dp[rows * width + columns - 1] = 1;
+        dp[(rows - 1) * width + columns] = 1;
+        for (int i = rows - 1; i >= 0; i--) {
+            for (int j = columns - 1; j >= 0; j--) {
+                relax(i, j);
+            }
+        }
+        recomputedCells = grid.size();
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getMinimumHP() {
+        return dp[0];
+    }
+
+    // Cells re-solved since construction, including the initial full solve
+    public long getRecomputedCells() {
+        return recomputedCells;
+    }
+
+    public int set(int row, int column, int value) {
+        return setAll(new int[][]{{row, column, value}});
+    }
+
+    /**
+     * Applies {row, column, value} edits and re-solves the affected region once for all of them.
+     * Returns the new minimum HP. Nothing is applied if any edit falls outside the grid.
+     */
+    public int setAll(int[][] edits) {
+        for (int[] edit : edits) {
+            if (edit[0] < 0 || edit[0] >= rows || edit[1] < 0 || edit[1] >= columns) {
+                throw new IllegalArgumentException("Cell (" + edit[0] + ", " + edit[1] + ") is outside the "
+                    + rows + "x" + columns + " dungeon");
+            }
+        }
+
+        // Row -> {lowest, highest} edited column; rows are swept bottom-up
+        TreeMap<Integer, int[]> dirty = new TreeMap<>();
+        for (int[] edit : edits) {
+            int row = edit[0];
+            int column = edit[1];
+            if (cells[row * columns + column] == edit[2]) {
+                continue;
+            }
+            cells[row * columns + column] = edit[2];
+            dirty.merge(row, new int[]{column, column},
+                (a, b) -> new int[]{Math.min(a[0], b[0]), Math.max(a[1], b[1])});
+        }
+
+        // Columns of the row below whose dp value changed, empty when lo > hi
+        int lo = Integer.MAX_VALUE;
+        int hi = -1;
+        Map.Entry<Integer, int[]> next = dirty.pollLastEntry();
+        int i = next == null ? -1 : next.getKey();
+        while (i >= 0) {
+            int from = hi;
+            int until = lo;
+            if (next != null && next.getKey() == i) {
+                from = Math.max(from, next.getValue()[1]);
+                until = Math.min(until, next.getValue()[0]);
+                next = dirty.pollLastEntry();
+            }
+
+            lo = Integer.MAX_VALUE;
+            hi = -1;
+            for (int j = from; j >= 0; j--) {
+                boolean changed = relax(i, j);
+                if (changed) {
+                    lo = j;
+                    hi = Math.max(hi, j);
+                } else if (j <= until) {
+                    break;
+                }
+            }
+
+            if (hi >= 0) {
+                i--;
+            } else if (next != null) {
+                i = next.getKey();
+            } else {
+                break;
+            }
+        }
+        return dp[0];
+    }
+
+    private boolean relax(int i, int j) {
+        int at = i * width + j;
+        int value = Math.max(1, Math.min(dp[at + width], dp[at + 1]) - cells[i * columns + j]);
+        recomputedCells++;
+        if (dp[at] == value) {
+            return false;
+        }
+        dp[at] = value;
+        return true;
+    }
+}
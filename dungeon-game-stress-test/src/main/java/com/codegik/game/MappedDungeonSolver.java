@@ -0,0 +1,84 @@
+package com.codegik.game;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.Arrays;
+
+/**
+ * Solves dungeons stored in the application/x-dungeon layout (int32 rows, int32 columns, then
+ * row-major int32 cells, little-endian) straight from a memory-mapped file, for grids that do not
+ * fit in the heap. Rows are read from the end of the file upwards in fixed-size chunks, so the heap
+ * holds one dp line of columns + 1 ints plus a chunk; the page cache holds the rest.
+ */
+public final class MappedDungeonSolver {
+
+    private static final int HEADER_BYTES = 8;
+    private static final ValueLayout.OfInt HEADER_INT = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final int CHUNK_CELLS = 64 * 1024;
+
+    public record Solution(int rows, int columns, int minimumHP) {
+    }
+
+    private MappedDungeonSolver() {
+    }
+
+    /**
+     * Solves the dungeon in {@code file}. When {@code digest} is given it is fed the header and then
+     * every cell chunk in the order they are read (rows bottom-up, each row right to left), which
+     * identifies the content without a second pass over the file.
+     */
+    public static Solution solve(Path file, MessageDigest digest) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+             Arena arena = Arena.ofConfined()) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_BYTES) {
+                throw new IllegalArgumentException("Dungeon file is shorter than its header");
+            }
+            MemorySegment mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize, arena);
+            int rows = mapped.get(HEADER_INT, 0);
+            int columns = mapped.get(HEADER_INT, Integer.BYTES);
+            if (rows < 1 || columns < 1 || columns == Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Dungeon file has invalid dimensions " + rows + "x" + columns);
+            }
+            long rowBytes = (long) columns * Integer.BYTES;
+            if (fileSize != HEADER_BYTES + rows * rowBytes) {
+                throw new IllegalArgumentException("Dungeon file size does not match a " + rows + "x" + columns + " dungeon");
+            }
+            if (digest != null) {
+                digest.update(mapped.asSlice(0, HEADER_BYTES).asByteBuffer());
+            }
+
+            int[] dp = new int[columns + 1];
+            Arrays.fill(dp, Integer.MAX_VALUE);
+            dp[columns - 1] = 1;
+            byte[] chunk = new byte[Math.min(columns, CHUNK_CELLS) * Integer.BYTES];
+            ByteBuffer cells = ByteBuffer.wrap(chunk).order(ByteOrder.LITTLE_ENDIAN);
+
+            for (int i = rows - 1; i >= 0; i--) {
+                long rowOffset = HEADER_BYTES + i * rowBytes;
+                for (int end = columns; end > 0; end -= CHUNK_CELLS) {
+                    int start = Math.max(0, end - CHUNK_CELLS);
+                    int length = (end - start) * Integer.BYTES;
+                    MemorySegment.copy(mapped, ValueLayout.JAVA_BYTE, rowOffset + (long) start * Integer.BYTES,
+                        chunk, 0, length);
+                    if (digest != null) {
+                        digest.update(chunk, 0, length);
+                    }
+                    for (int j = end - 1; j >= start; j--) {
+                        int minHealth = Math.min(dp[j], dp[j + 1]) - cells.getInt((j - start) * Integer.BYTES);
+                        dp[j] = Math.max(1, minHealth);
+                    }
+                }
+            }
+            return new Solution(rows, columns, dp[0]);
+        }
+    }
+}
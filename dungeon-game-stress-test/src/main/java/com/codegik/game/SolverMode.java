@@ -0,0 +1,7 @@
+package com.codegik.game;
+
+public enum SolverMode {
+    FULL_TABLE,
+    ROLLING_ROW,
+    VECTORIZED
+}
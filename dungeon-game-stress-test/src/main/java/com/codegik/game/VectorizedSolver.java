@@ -0,0 +1,71 @@
+package com.codegik.game;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.util.Arrays;
+
+/**
+ * Anti-diagonal solver whose inner loop runs on jdk.incubator.vector lanes. Cells on the same
+ * anti-diagonal are independent, so once a diagonal's costs are gathered into a contiguous scratch
+ * array the min/subtract/max step is a plain lane-wise operation. Requires the incubator module at
+ * runtime, so callers must check the module is resolved before touching this class.
+ */
+class VectorizedSolver implements DungeonSolver {
+
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+    @Override
+    public int calculateMinimumHP(DungeonGrid grid) {
+        int m = grid.getRows();
+        int n = grid.getColumns();
+        int[] cells = grid.getCells();
+        // Index diagonals along the shorter side so scratch arrays stay O(min(m, n)).
+        boolean transposed = m > n;
+        int size = transposed ? n : m;
+        int other = transposed ? m : n;
+
+        // Slot t of a diagonal k holds dp for cell (t, k - t) in the (possibly transposed) grid;
+        // slot size stands for the virtual row below the grid.
+        int[] prev = new int[size + 1];
+        int[] cur = new int[size + 1];
+        int[] cost = new int[size];
+        Arrays.fill(prev, Integer.MAX_VALUE);
+        prev[size - 1] = 1;
+        prev[size] = 1;
+
+        for (int k = size + other - 2; k >= 0; k--) {
+            int lo = Math.max(0, k - other + 1);
+            int hi = Math.min(size - 1, k);
+
+            for (int t = lo; t <= hi; t++) {
+                cost[t] = transposed ? cells[(k - t) * n + t] : cells[t * n + k - t];
+            }
+
+            int t = lo;
+            int upper = lo + SPECIES.loopBound(hi - lo + 1);
+            for (; t < upper; t += SPECIES.length()) {
+                IntVector down = IntVector.fromArray(SPECIES, prev, t + 1);
+                IntVector right = IntVector.fromArray(SPECIES, prev, t);
+                IntVector cell = IntVector.fromArray(SPECIES, cost, t);
+                down.min(right).sub(cell).max(1).intoArray(cur, t);
+            }
+            for (; t <= hi; t++) {
+                int minHealth = Math.min(prev[t + 1], prev[t]) - cost[t];
+                cur[t] = Math.max(1, minHealth);
+            }
+
+            // Cells just outside the diagonal lie past the grid edge and are read by the next one.
+            if (lo > 0) {
+                cur[lo - 1] = Integer.MAX_VALUE;
+            }
+            cur[hi + 1] = Integer.MAX_VALUE;
+
+            int[] swap = prev;
+            prev = cur;
+            cur = swap;
+        }
+
+        return prev[0];
+    }
+}
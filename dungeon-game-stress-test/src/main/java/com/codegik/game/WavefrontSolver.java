@@ -0,0 +1,129 @@
+package com.codegik.game;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * Tiled anti-diagonal wavefront solver. The grid is cut into square tiles and every tile on the
+ * same anti-diagonal is solved in parallel, since a tile only depends on the tile below it and
+ * the tile to its right. Only the tile edges are kept between steps, so memory is O(m + n).
+ */
+public class WavefrontSolver implements DungeonSolver {
+
+    public static final int DEFAULT_TILE_SIZE = 256;
+
+    private final ForkJoinPool pool;
+    private final int tileSize;
+
+    public WavefrontSolver() {
+        this(ForkJoinPool.commonPool(), DEFAULT_TILE_SIZE);
+    }
+
+    public WavefrontSolver(ForkJoinPool pool, int tileSize) {
+        if (tileSize < 1) {
+            throw new IllegalArgumentException("Tile size must be positive");
+        }
+        this.pool = pool;
+        this.tileSize = tileSize;
+    }
+
+    @Override
+    public int calculateMinimumHP(DungeonGrid grid) {
+        return calculateMinimumHP(grid, null);
+    }
+
+    /**
+     * Same as {@link #calculateMinimumHP(DungeonGrid)}, reporting how many bottom rows are fully
+     * solved. Tile row t is finished once its leftmost tile is, which happens on diagonal t.
+     */
+    public int calculateMinimumHP(DungeonGrid grid, IntConsumer rowsDone) {
+        int m = grid.getRows();
+        int n = grid.getColumns();
+
+        // rowEdge[j] holds dp of the top row of the last tile solved in column j's strip,
+        // colEdge[i] holds dp of the left column of the last tile solved in row i's strip.
+        int[] rowEdge = new int[n];
+        int[] colEdge = new int[m];
+        Arrays.fill(rowEdge, Integer.MAX_VALUE);
+        Arrays.fill(colEdge, Integer.MAX_VALUE);
+        rowEdge[n - 1] = 1;
+
+        int tileRows = (m + tileSize - 1) / tileSize;
+        int tileCols = (n + tileSize - 1) / tileSize;
+
+        for (int d = tileRows + tileCols - 2; d >= 0; d--) {
+            int first = Math.max(0, d - (tileCols - 1));
+            int last = Math.min(tileRows - 1, d);
+            DiagonalTask task = new DiagonalTask(grid, rowEdge, colEdge, d, first, last + 1);
+            if (first == last) {
+                task.compute();
+            } else {
+                pool.invoke(task);
+            }
+            if (rowsDone != null && d < tileRows) {
+                rowsDone.accept(m - d * tileSize);
+            }
+        }
+
+        return colEdge[0];
+    }
+
+    private void solveTile(DungeonGrid grid, int[] rowEdge, int[] colEdge, int tileRow, int tileCol) {
+        int n = grid.getColumns();
+        int[] cells = grid.getCells();
+        int i0 = tileRow * tileSize;
+        int i1 = Math.min(i0 + tileSize, grid.getRows());
+        int j0 = tileCol * tileSize;
+        int j1 = Math.min(j0 + tileSize, n);
+        int width = j1 - j0;
+
+        int[] line = new int[width + 1];
+        System.arraycopy(rowEdge, j0, line, 0, width);
+
+        for (int i = i1 - 1; i >= i0; i--) {
+            int base = i * n + j0;
+            line[width] = colEdge[i];
+            for (int j = width - 1; j >= 0; j--) {
+                int minHealth = Math.min(line[j], line[j + 1]) - cells[base + j];
+                line[j] = Math.max(1, minHealth);
+            }
+            colEdge[i] = line[0];
+        }
+
+        System.arraycopy(line, 0, rowEdge, j0, width);
+    }
+
+    private class DiagonalTask extends RecursiveAction {
+
+        private final DungeonGrid grid;
+        private final int[] rowEdge;
+        private final int[] colEdge;
+        private final int diagonal;
+        private final int from;
+        private final int to;
+
+        DiagonalTask(DungeonGrid grid, int[] rowEdge, int[] colEdge, int diagonal, int from, int to) {
+            this.grid = grid;
+            this.rowEdge = rowEdge;
+            this.colEdge = colEdge;
+            this.diagonal = diagonal;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                solveTile(grid, rowEdge, colEdge, from, diagonal - from);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(
+                new DiagonalTask(grid, rowEdge, colEdge, diagonal, from, mid),
+                new DiagonalTask(grid, rowEdge, colEdge, diagonal, mid, to)
+            );
+        }
+    }
+}
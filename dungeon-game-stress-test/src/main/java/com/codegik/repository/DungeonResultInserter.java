@@ -0,0 +1,179 @@
+package com.codegik.repository;
+
+import com.codegik.entity.DungeonResult;
+import com.codegik.entity.DungeonStorageCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes results into the deduplicated layout behind the dungeon_results view: each distinct grid
+ * is stored once in dungeons, keyed by the SHA-256 of its encoded bytes, and every submission adds
+ * one small dungeon_submissions row pointing at it. Repeat grids cost an index probe instead of a blob.
+ */
+@Repository
+public class DungeonResultInserter {
+
+    private static final Logger log = LoggerFactory.getLogger(DungeonResultInserter.class);
+
+    private static final String UPSERT_DUNGEON_SQL =
+        "INSERT INTO dungeons (content_hash, dungeon_data, result, rows, columns) VALUES (?, ?, ?, ?, ?) "
+            + "ON CONFLICT DO NOTHING";
+    private static final String INSERT_SUBMISSION_SQL =
+        "INSERT INTO dungeon_submissions (dungeon_id, result, rows, columns, created_at) "
+            + "SELECT id, result, rows, columns, ? FROM dungeons WHERE content_hash = ?";
+    // Legacy rows hold JSON text, so theirs is the only encoding starting with '['
+    private static final String LEGACY_BATCH_SQL =
+        "SELECT id, dungeon_data FROM dungeons WHERE id > ? AND dungeon_data >= ? AND dungeon_data < ? ORDER BY id LIMIT ?";
+    private static final byte[] LEGACY_FROM = {'['};
+    private static final byte[] LEGACY_TO = {'[' + 1};
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public DungeonResultInserter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Inserts one result and returns it with the generated submission id.
+     */
+    @Transactional
+    public DungeonResult insert(DungeonResult result) {
+        return insert(result, contentHash(result.getEncodedDungeon()));
+    }
+
+    /**
+     * Inserts a result under a caller-computed content hash. Used for dungeons solved from a file,
+     * which have no encoded bytes and are stored with a null dungeon_data.
+     */
+    @Transactional
+    public DungeonResult insert(DungeonResult result, byte[] hash) {
+        for (int attempt = 0; attempt < 2; attempt++) {
+            jdbcTemplate.update(UPSERT_DUNGEON_SQL, ps -> bindDungeon(ps, hash, result));
+
+            KeyHolder keyHolder = new GeneratedKeyHolder();
+            int inserted = jdbcTemplate.update(connection -> {
+                PreparedStatement ps = connection.prepareStatement(INSERT_SUBMISSION_SQL, new String[]{"id"});
+                bindSubmission(ps, hash, result);
+                return ps;
+            }, keyHolder);
+            if (inserted == 1) {
+                result.setId(keyHolder.getKey().longValue());
+                return result;
+            }
+        }
+        throw new IllegalStateException("Dungeon row vanished twice while inserting a submission");
+    }
+
+    /**
+     * Inserts many results as two JDBC batches in one transaction. Generated ids are not read back.
+     */
+    @Transactional
+    public void insertAll(List<DungeonResult> results) {
+        if (results.isEmpty()) {
+            return;
+        }
+        List<HashedResult> rows = results.stream()
+            .map(result -> new HashedResult(result, contentHash(result.getEncodedDungeon())))
+            .toList();
+        for (int attempt = 0; attempt < 2 && !rows.isEmpty(); attempt++) {
+            jdbcTemplate.batchUpdate(UPSERT_DUNGEON_SQL, rows, rows.size(),
+                (ps, row) -> bindDungeon(ps, row.hash(), row.result()));
+            int[][] counts = jdbcTemplate.batchUpdate(INSERT_SUBMISSION_SQL, rows, rows.size(),
+                (ps, row) -> bindSubmission(ps, row.hash(), row.result()));
+            rows = notInserted(rows, counts[0]);
+        }
+        if (!rows.isEmpty()) {
+            throw new IllegalStateException("Dungeon rows vanished twice while inserting " + rows.size() + " submissions");
+        }
+    }
+
+    /**
+     * Rewrites one batch of dungeons that still hold the JSON text of databases older than the binary
+     * encoding, in ascending id order after {@code afterId}. The schema migration hashed those rows
+     * over their JSON bytes, which a new submission of the same grid never matches. Each one gets the
+     * current encoding and its hash; a grid that was submitted again in the meantime already has a row
+     * under that hash, so the legacy row's submissions move to it and the legacy row is deleted.
+     * Returns the last id looked at, or -1 when no legacy rows are left after {@code afterId}.
+     */
+    @Transactional
+    public long reencodeLegacy(long afterId, int batchSize) {
+        List<LegacyDungeon> batch = jdbcTemplate.query(LEGACY_BATCH_SQL,
+            (rs, rowNum) -> new LegacyDungeon(rs.getLong("id"), rs.getBytes("dungeon_data")),
+            afterId, LEGACY_FROM, LEGACY_TO, batchSize);
+        if (batch.isEmpty()) {
+            return -1;
+        }
+        for (LegacyDungeon legacy : batch) {
+            byte[] encoded;
+            try {
+                encoded = DungeonStorageCodec.encode(DungeonStorageCodec.decode(legacy.data()));
+            } catch (IllegalArgumentException e) {
+                log.warn("Leaving unreadable legacy dungeon {} as it is", legacy.id(), e);
+                continue;
+            }
+            byte[] hash = contentHash(encoded);
+            List<Long> existing = jdbcTemplate.queryForList("SELECT id FROM dungeons WHERE content_hash = ?", Long.class, hash);
+            if (existing.isEmpty()) {
+                jdbcTemplate.update("UPDATE dungeons SET content_hash = ?, dungeon_data = ? WHERE id = ?",
+                    hash, encoded, legacy.id());
+            } else {
+                jdbcTemplate.update("UPDATE dungeon_submissions SET dungeon_id = ? WHERE dungeon_id = ?",
+                    existing.get(0), legacy.id());
+                jdbcTemplate.update("DELETE FROM dungeons WHERE id = ?", legacy.id());
+            }
+        }
+        return batch.get(batch.size() - 1).id();
+    }
+
+    // The submission insert selects its dungeon by hash, so it inserts nothing if the retention purge
+    // deleted that dungeon between the upsert and the select; those rows go round again
+    private static List<HashedResult> notInserted(List<HashedResult> rows, int[] counts) {
+        List<HashedResult> missing = new ArrayList<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                missing.add(rows.get(i));
+            }
+        }
+        return missing;
+    }
+
+    private static void bindDungeon(PreparedStatement ps, byte[] hash, DungeonResult result) throws SQLException {
+        ps.setBytes(1, hash);
+        ps.setBytes(2, result.getEncodedDungeon());
+        ps.setInt(3, result.getResult());
+        ps.setInt(4, result.getRows());
+        ps.setInt(5, result.getColumns());
+    }
+
+    private static void bindSubmission(PreparedStatement ps, byte[] hash, DungeonResult result) throws SQLException {
+        ps.setTimestamp(1, Timestamp.valueOf(result.getCreatedAt()));
+        ps.setBytes(2, hash);
+    }
+
+    static byte[] contentHash(byte[] encodedDungeon) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(encodedDungeon);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private record HashedResult(DungeonResult result, byte[] hash) {
+    }
+
+    private record LegacyDungeon(long id, byte[] data) {
+    }
+}
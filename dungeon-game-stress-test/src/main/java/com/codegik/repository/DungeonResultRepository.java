@@ -2,22 +2,49 @@ package com.codegik.repository;
 
 import com.codegik.entity.DungeonResult;
 import org.springframework.data.jdbc.repository.query.Query;
-import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.Repository;
 import org.springframework.data.repository.query.Param;
-import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
-@Repository
-public interface DungeonResultRepository extends CrudRepository<DungeonResult, Long> {
+// dungeon_results is a read-only view over dungeon_submissions and dungeons, so this declares only the reads the
+// service runs and no derived save or delete; writes go through DungeonResultInserter.
+// Lookups by id, result or dimensions take a created_at lower bound, ResultPartitionManager.lookupStart(), so
+// Postgres prunes the partitions waiting to be dropped and probes each retained partition's own index. Rows
+// older than the bound stay on the pages until their partition is dropped but are not found here.
+public interface DungeonResultRepository extends Repository<DungeonResult, Long> {
 
-    List<DungeonResult> findByResult(Integer result);
+    @Query("SELECT * FROM dungeon_results WHERE id = :id AND created_at >= :since")
+    Optional<DungeonResult> findByIdSince(@Param("id") Long id, @Param("since") LocalDateTime since);
 
-    List<DungeonResult> findByRowsAndColumns(Integer rows, Integer columns);
+    @Query("SELECT * FROM dungeon_results WHERE result = :result AND created_at >= :since")
+    List<DungeonResult> findByResultSince(@Param("result") Integer result, @Param("since") LocalDateTime since);
 
-    @Query("SELECT * FROM dungeon_results ORDER BY created_at DESC")
-    List<DungeonResult> findAllOrderByCreatedAtDesc();
+    @Query("SELECT * FROM dungeon_results WHERE rows = :rows AND columns = :columns AND created_at >= :since")
+    List<DungeonResult> findByRowsAndColumnsSince(@Param("rows") Integer rows, @Param("columns") Integer columns,
+                                                  @Param("since") LocalDateTime since);
 
-    @Query("SELECT AVG(result) FROM dungeon_results WHERE rows = :rows AND columns = :columns")
-    Double findAverageResultByDimensions(@Param("rows") Integer rows, @Param("columns") Integer columns);
+    // Keyset pages ordered by (created_at, id) descending. The cursor condition is written as a range on
+    // created_at plus a tie-break on id so it stays a scan of idx_dungeon_submissions_created_at, and so
+    // Postgres prunes the dungeon_submissions partitions that start after the cursor. Without a default
+    // partition the partitions are scanned newest first and the scan stops once the page is full.
+    @Query("SELECT * FROM dungeon_results ORDER BY created_at DESC, id DESC LIMIT :limit")
+    List<DungeonResult> findFirstPage(@Param("limit") int limit);
+
+    @Query("SELECT * FROM dungeon_results WHERE created_at <= :createdAt AND (created_at < :createdAt OR id < :id) "
+        + "ORDER BY created_at DESC, id DESC LIMIT :limit")
+    List<DungeonResult> findPageBefore(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id,
+                                       @Param("limit") int limit);
+
+    @Query("SELECT id, NULL AS dungeon_data, result, rows, columns, created_at FROM dungeon_results "
+        + "ORDER BY created_at DESC, id DESC LIMIT :limit")
+    List<DungeonResult> findFirstSummaryPage(@Param("limit") int limit);
+
+    @Query("SELECT id, NULL AS dungeon_data, result, rows, columns, created_at FROM dungeon_results "
+        + "WHERE created_at <= :createdAt AND (created_at < :createdAt OR id < :id) "
+        + "ORDER BY created_at DESC, id DESC LIMIT :limit")
+    List<DungeonResult> findSummaryPageBefore(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id,
+                                              @Param("limit") int limit);
 }
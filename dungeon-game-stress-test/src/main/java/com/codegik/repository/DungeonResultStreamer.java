@@ -0,0 +1,66 @@
+package com.codegik.repository;
+
+import com.codegik.entity.DungeonResult;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.function.Consumer;
+
+/**
+ * Walks dungeon_results newest first through a JDBC cursor. Postgres only honours the fetch size
+ * inside a transaction, so rows arrive in fetch-size chunks instead of the whole table at once.
+ */
+@Repository
+public class DungeonResultStreamer {
+
+    private static final String SELECT_ALL =
+        "SELECT id, dungeon_data, result, rows, columns, created_at FROM dungeon_results ORDER BY created_at DESC, id DESC";
+    private static final String SELECT_SUMMARIES =
+        "SELECT id, result, rows, columns, created_at FROM dungeon_results ORDER BY created_at DESC, id DESC";
+    private static final String SELECT_SUMMARIES_SINCE =
+        "SELECT id, result, rows, columns, created_at FROM dungeon_results WHERE created_at >= ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public DungeonResultStreamer(DataSource dataSource, @Value("${dungeon.results.stream-fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+    }
+
+    @Transactional(readOnly = true)
+    public void streamAll(boolean includeData, Consumer<DungeonResult> consumer) {
+        jdbcTemplate.query(includeData ? SELECT_ALL : SELECT_SUMMARIES, rs -> {
+            consumer.accept(mapRow(rs, includeData));
+        });
+    }
+
+    /**
+     * Streams results without their grids, in no particular order, for rows created at or after
+     * {@code from}. On the partitioned table only the partitions from there on are scanned.
+     */
+    @Transactional(readOnly = true)
+    public void streamCreatedSince(LocalDateTime from, Consumer<DungeonResult> consumer) {
+        jdbcTemplate.query(SELECT_SUMMARIES_SINCE, rs -> {
+            consumer.accept(mapRow(rs, false));
+        }, Timestamp.valueOf(from));
+    }
+
+    private static DungeonResult mapRow(ResultSet rs, boolean includeData) throws SQLException {
+        DungeonResult result = new DungeonResult(
+            includeData ? rs.getBytes("dungeon_data") : null,
+            rs.getInt("result"),
+            rs.getInt("rows"),
+            rs.getInt("columns")
+        );
+        result.setId(rs.getLong("id"));
+        result.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
+        return result;
+    }
+}
@@ -0,0 +1,8 @@
+package com.codegik.service;
+
+public enum CacheHitPolicy {
+    // Cache hits skip the DP but still insert a DungeonResult row
+    RECORD,
+    // Cache hits only bump the hit counter, nothing is written
+    COUNT
+}
@@ -0,0 +1,58 @@
+package com.codegik.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-stage latency of the calculate path, tagged by stage and dungeon size bucket. Every timer
+ * is registered up front and picked by array index, so recording builds no tags and does no
+ * registry lookup. Error counters are created lazily per exception type, off the success path.
+ */
+@Component
+public class CalculateMetrics {
+
+    public static final String STAGE_TIMER = "dungeon.calculate.stage";
+    public static final String ERROR_COUNTER = "dungeon.calculate.errors";
+
+    public enum Stage {
+        PARSE, SOLVE, ENCODE, PERSIST
+    }
+
+    private final MeterRegistry registry;
+    private final Timer[][] timers = new Timer[Stage.values().length][SizeBucket.values().length];
+    private final ConcurrentHashMap<Class<?>, Counter> errorCounters = new ConcurrentHashMap<>();
+
+    public CalculateMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        for (Stage stage : Stage.values()) {
+            for (SizeBucket size : SizeBucket.values()) {
+                timers[stage.ordinal()][size.ordinal()] = Timer.builder(STAGE_TIMER)
+                    .description("Time spent in one stage of a calculate request")
+                    .tag("stage", stage.name().toLowerCase())
+                    .tag("size", size.getName())
+                    .publishPercentileHistogram()
+                    .register(registry);
+            }
+        }
+    }
+
+    public void record(Stage stage, long cells, long startNanos) {
+        timers[stage.ordinal()][SizeBucket.of(cells).ordinal()].record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordError(Throwable error) {
+        Counter counter = errorCounters.get(error.getClass());
+        if (counter == null) {
+            counter = errorCounters.computeIfAbsent(error.getClass(), type -> Counter.builder(ERROR_COUNTER)
+                .description("Calculate requests that failed, by exception type")
+                .tag("type", type.getSimpleName())
+                .register(registry));
+        }
+        counter.increment();
+    }
+}
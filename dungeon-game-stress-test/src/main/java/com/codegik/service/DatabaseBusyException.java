@@ -0,0 +1,8 @@
+package com.codegik.service;
+
+public class DatabaseBusyException extends RuntimeException {
+
+    public DatabaseBusyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,63 @@
+package com.codegik.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Caps concurrent database work at the Hikari pool size. With virtual threads there is no request
+ * thread limit any more, so without this thousands of requests would queue inside Hikari and time
+ * out there; waiting on a semaphore instead just parks the virtual thread.
+ */
+@Component
+public class DatabaseConcurrencyLimiter {
+
+    private final boolean enabled;
+    private final Semaphore permits;
+    private final long acquireTimeoutMillis;
+
+    public DatabaseConcurrencyLimiter(@Value("${dungeon.db.limiter.enabled:false}") boolean enabled,
+                                      @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize,
+                                      @Value("${dungeon.db.limiter.acquire-timeout-ms:30000}") long acquireTimeoutMillis) {
+        this.enabled = enabled;
+        this.permits = new Semaphore(poolSize, true);
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+    }
+
+    public <T> T call(Supplier<T> action) {
+        if (!enabled) {
+            return action.get();
+        }
+        acquire();
+        try {
+            return action.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    public void run(Runnable action) {
+        call(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    public int getAvailablePermits() {
+        return permits.availablePermits();
+    }
+
+    private void acquire() {
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new DatabaseBusyException("Timed out waiting for a database connection slot");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DatabaseBusyException("Interrupted while waiting for a database connection slot");
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.codegik.service;
+
+import java.util.List;
+
+/**
+ * Dungeon shape class for the result distribution. Rows and columns each fall into a side-length
+ * range, so a 1x400 corridor and a 20x20 room, which have the same cell count, land in different
+ * buckets. Names read rows range, then columns range, such as {@code 11-100x1-10}.
+ */
+public final class DimensionBucket {
+
+    // Upper bounds of the side-length ranges; the last range is open ended
+    private static final int[] SIDE_LIMITS = {10, 100, 1000, Integer.MAX_VALUE};
+    private static final List<DimensionBucket> ALL;
+
+    static {
+        DimensionBucket[] all = new DimensionBucket[SIDE_LIMITS.length * SIDE_LIMITS.length];
+        for (int rows = 0; rows < SIDE_LIMITS.length; rows++) {
+            for (int columns = 0; columns < SIDE_LIMITS.length; columns++) {
+                int index = rows * SIDE_LIMITS.length + columns;
+                all[index] = new DimensionBucket(index, sideName(rows) + "x" + sideName(columns));
+            }
+        }
+        ALL = List.of(all);
+    }
+
+    private final int index;
+    private final String name;
+
+    private DimensionBucket(int index, String name) {
+        this.index = index;
+        this.name = name;
+    }
+
+    public static DimensionBucket of(int rows, int columns) {
+        if (rows < 1 || columns < 1) {
+            throw new IllegalArgumentException("Dimensions must be positive: " + rows + "x" + columns);
+        }
+        return ALL.get(side(rows) * SIDE_LIMITS.length + side(columns));
+    }
+
+    public static DimensionBucket named(String name) {
+        for (DimensionBucket bucket : ALL) {
+            if (bucket.name.equals(name)) {
+                return bucket;
+            }
+        }
+        throw new IllegalArgumentException("Unknown dimension bucket " + name);
+    }
+
+    public static List<DimensionBucket> values() {
+        return ALL;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    private static int side(int length) {
+        int range = 0;
+        while (length > SIDE_LIMITS[range]) {
+            range++;
+        }
+        return range;
+    }
+
+    private static String sideName(int range) {
+        int from = range == 0 ? 1 : SIDE_LIMITS[range - 1] + 1;
+        return range == SIDE_LIMITS.length - 1 ? from + "+" : from + "-" + SIDE_LIMITS[range];
+    }
+}
@@ -1,69 +1,299 @@
 package com.codegik.service;
 
 import com.codegik.entity.DungeonResult;
+import com.codegik.entity.DungeonStorageCodec;
 import com.codegik.game.DungeonGame;
+import com.codegik.game.DungeonGrid;
+import com.codegik.game.DungeonPath;
+import com.codegik.repository.DungeonResultInserter;
 import com.codegik.repository.DungeonResultRepository;
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.codegik.dto.BatchDungeonItem;
+import com.codegik.dto.CacheStats;
+import com.codegik.dto.DimensionStats;
+import com.codegik.dto.DungeonResponse;
+import com.codegik.dto.ResultCursor;
+import com.codegik.repository.DungeonResultStreamer;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.function.IntConsumer;
+import java.util.function.IntSupplier;
 
 @Service
 public class DungeonGameService {
 
     private final DungeonGame dungeonGame;
     private final DungeonResultRepository repository;
+    private final DungeonResultCache cache;
+    private final CacheHitPolicy cacheHitPolicy;
+    private final WriteBehindResultWriter writeBehindWriter;
+    private final DungeonResultStreamer resultStreamer;
+    private final DungeonStatistics statistics;
+    private final DatabaseConcurrencyLimiter dbLimiter;
+    private final DungeonResultInserter resultInserter;
+    private final ForkJoinPool solverPool;
+    private final int maxBatchSize;
     private final ObjectMapper objectMapper;
+    private final CalculateMetrics metrics;
+    private final ResultPartitionManager partitionManager;
+    private final Semaphore streamSlots;
 
     @Autowired
-    public DungeonGameService(DungeonResultRepository repository) {
-        this.dungeonGame = new DungeonGame();
+    public DungeonGameService(DungeonResultRepository repository, DungeonGame dungeonGame,
+                              DungeonResultCache cache,
+                              @Value("${dungeon.cache.hit-policy:RECORD}") CacheHitPolicy cacheHitPolicy,
+                              WriteBehindResultWriter writeBehindWriter,
+                              DungeonResultStreamer resultStreamer,
+                              DungeonStatistics statistics,
+                              DatabaseConcurrencyLimiter dbLimiter,
+                              DungeonResultInserter resultInserter,
+                              ForkJoinPool solverPool,
+                              @Value("${dungeon.batch.max-size:1000}") int maxBatchSize,
+                              ObjectMapper objectMapper,
+                              CalculateMetrics metrics,
+                              ResultPartitionManager partitionManager,
+                              @Value("${dungeon.results.max-concurrent-streams:2}") int maxConcurrentStreams) {
+        this.dungeonGame = dungeonGame;
         this.repository = repository;
-        this.objectMapper = new ObjectMapper();
+        this.cache = cache;
+        this.cacheHitPolicy = cacheHitPolicy;
+        this.writeBehindWriter = writeBehindWriter;
+        this.resultStreamer = resultStreamer;
+        this.statistics = statistics;
+        this.dbLimiter = dbLimiter;
+        this.resultInserter = resultInserter;
+        this.solverPool = solverPool;
+        this.maxBatchSize = maxBatchSize;
+        this.objectMapper = objectMapper;
+        this.metrics = metrics;
+        this.partitionManager = partitionManager;
+        this.streamSlots = new Semaphore(maxConcurrentStreams);
     }
 
     public DungeonResult calculateAndSave(int[][] dungeon) {
+        return calculateAndSave(DungeonGrid.of(dungeon));
+    }
+
+    public DungeonResult calculateAndSave(DungeonGrid dungeon) {
+        return calculateAndSave(dungeon, null);
+    }
+
+    /**
+     * Solves and persists the dungeon, reporting finished rows to {@code rowsDone} when it is
+     * given. Cache hits skip the solver and report nothing.
+     */
+    public DungeonResult calculateAndSave(DungeonGrid dungeon, IntConsumer rowsDone) {
+        return persist(dungeon, solve(dungeon, rowsDone));
+    }
+
+    // Persists the minimum HP the route search already found instead of solving the grid again
+    public DungeonResult saveWithPath(DungeonGrid dungeon, DungeonPath path) {
+        return persist(dungeon, solveWith(dungeon, path::getMinimumHP));
+    }
+
+    private DungeonResult persist(DungeonGrid dungeon, Solved solved) {
+        if (!solved.persist()) {
+            return solved.result();
+        }
+
+        if (writeBehindWriter.isEnabled()) {
+            return writeBehindWriter.submit(solved.result());
+        }
+        long persistStart = System.nanoTime();
+        DungeonResult saved = dbLimiter.call(() -> resultInserter.insert(solved.result()));
+        metrics.record(CalculateMetrics.Stage.PERSIST, dungeon.size(), persistStart);
+        statistics.record(saved);
+        return saved;
+    }
+
+    // Solves every valid dungeon in parallel on the solver pool and inserts all rows in one batch.
+    // Responses keep the request order; invalid or failing dungeons get an error entry of their own.
+    public List<DungeonResponse> calculateAndSaveBatch(List<BatchDungeonItem> items) {
+        if (items.size() > maxBatchSize) {
+            throw new IllegalArgumentException("Batch has " + items.size() + " dungeons, limit is " + maxBatchSize);
+        }
+
+        List<CompletableFuture<Solved>> pending = new ArrayList<>(items.size());
+        for (BatchDungeonItem item : items) {
+            pending.add(item != null && item.isValid()
+                ? CompletableFuture.supplyAsync(() -> solve(item.getGrid(), null), solverPool)
+                : null);
+        }
+
+        List<DungeonResponse> responses = new ArrayList<>(items.size());
+        List<DungeonResult> rows = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            BatchDungeonItem item = items.get(i);
+            if (item == null) {
+                responses.add(new DungeonResponse(0, "Error: Dungeon cannot be null"));
+                continue;
+            }
+            if (!item.isValid()) {
+                responses.add(new DungeonResponse(0, "Error: " + item.getError()));
+                continue;
+            }
+            try {
+                Solved solved = pending.get(i).join();
+                responses.add(new DungeonResponse(solved.result().getResult(), "Success"));
+                if (solved.persist()) {
+                    rows.add(solved.result());
+                }
+            } catch (CompletionException e) {
+                responses.add(new DungeonResponse(0, "Error: " + e.getCause().getMessage()));
+            }
+        }
+
+        dbLimiter.run(() -> resultInserter.insertAll(rows));
+        statistics.recordAll(rows);
+        return responses;
+    }
+
+    // Always solves the grid, since the cache only keeps the HP value and not the route
+    public DungeonPath findPath(DungeonGrid dungeon) {
+        long solveStart = System.nanoTime();
+        DungeonPath path = DungeonPath.find(dungeon);
+        metrics.record(CalculateMetrics.Stage.SOLVE, dungeon.size(), solveStart);
+        return path;
+    }
+
+    private Solved solve(DungeonGrid dungeon, IntConsumer rowsDone) {
+        return solveWith(dungeon, () -> {
+            long solveStart = System.nanoTime();
+            int result = rowsDone == null
+                ? dungeonGame.calculateMinimumHP(dungeon)
+                : dungeonGame.calculateMinimumHP(dungeon, rowsDone);
+            metrics.record(CalculateMetrics.Stage.SOLVE, dungeon.size(), solveStart);
+            return result;
+        });
+    }
+
+    // The solver only runs on a cache miss
+    private Solved solveWith(DungeonGrid dungeon, IntSupplier solver) {
+        Integer cached = cache.get(dungeon);
+        if (cached != null && cacheHitPolicy == CacheHitPolicy.COUNT) {
+            return new Solved(new DungeonResult(null, cached, dungeon.getRows(), dungeon.getColumns()), false);
+        }
+
+        int result;
+        if (cached != null) {
+            result = cached;
+        } else {
+            result = solver.getAsInt();
+            cache.put(dungeon, result);
+        }
+
+        long encodeStart = System.nanoTime();
+        byte[] encoded = DungeonStorageCodec.encode(dungeon);
+        metrics.record(CalculateMetrics.Stage.ENCODE, dungeon.size(), encodeStart);
+
+        DungeonResult dungeonResult = new DungeonResult(
+            encoded,
+            result,
+            dungeon.getRows(),
+            dungeon.getColumns()
+        );
+        return new Solved(dungeonResult, true);
+    }
+
+    public List<DungeonResult> getResultsPage(int pageSize, ResultCursor cursor, boolean includeData) {
+        if (cursor == null) {
+            return dbLimiter.call(() -> includeData
+                ? repository.findFirstPage(pageSize)
+                : repository.findFirstSummaryPage(pageSize));
+        }
+        return dbLimiter.call(() -> includeData
+            ? repository.findPageBefore(cursor.getCreatedAt(), cursor.getId(), pageSize)
+            : repository.findSummaryPageBefore(cursor.getCreatedAt(), cursor.getId(), pageSize));
+    }
+
+    /**
+     * Takes one of the dungeon.results.max-concurrent-streams slots, without waiting, for a following
+     * {@link #streamResults} call, which gives it back. A stream holds its database permit and
+     * connection for as long as the client takes to read every row, so streams get their own cap
+     * below the pool size and slow readers cannot starve the short queries of connections.
+     */
+    public void reserveResultStream() {
+        if (!streamSlots.tryAcquire()) {
+            throw new DatabaseBusyException("Too many result streams in progress");
+        }
+    }
+
+    // Writes every result as one JSON object per line without materializing the table, then releases
+    // the slot reserveResultStream took.
+    public void streamResults(boolean includeData, OutputStream out) throws IOException {
         try {
-            int result = dungeonGame.calculateMinimumHP(dungeon);
-            String dungeonData = objectMapper.writeValueAsString(dungeon);
-
-            DungeonResult dungeonResult = new DungeonResult(
-                dungeonData,
-                result,
-                dungeon.length,
-                dungeon[0].length
-            );
-
-            return repository.save(dungeonResult);
-        } catch (JsonProcessingException e) {
-            throw new RuntimeException("Failed to serialize dungeon data", e);
+            writeResults(includeData, out);
+        } finally {
+            streamSlots.release();
         }
     }
 
-    public List<DungeonResult> getAllResults() {
-        return repository.findAllOrderByCreatedAtDesc();
+    private void writeResults(boolean includeData, OutputStream out) throws IOException {
+        try (SequenceWriter writer = objectMapper.writer()
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .without(SerializationFeature.CLOSE_CLOSEABLE)
+                .withRootValueSeparator("\n")
+                .writeValues(out)) {
+            dbLimiter.run(() -> resultStreamer.streamAll(includeData, result -> {
+                try {
+                    writer.write(result);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+            writer.flush();
+            out.write('\n');
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
     }
 
     public Optional<DungeonResult> getResultById(Long id) {
-        return repository.findById(id);
+        return dbLimiter.call(() -> repository.findByIdSince(id, partitionManager.lookupStart()));
     }
 
     public List<DungeonResult> getResultsByDimensions(int rows, int columns) {
-        return repository.findByRowsAndColumns(rows, columns);
+        return dbLimiter.call(() -> repository.findByRowsAndColumnsSince(rows, columns, partitionManager.lookupStart()));
     }
 
     public List<DungeonResult> getResultsByResult(int result) {
-        return repository.findByResult(result);
+        return dbLimiter.call(() -> repository.findByResultSince(result, partitionManager.lookupStart()));
     }
 
     public Double getAverageResult(int rows, int columns) {
-        return repository.findAverageResultByDimensions(rows, columns);
+        return statistics.getAverage(rows, columns);
     }
 
     public long getTotalResultsCount() {
-        return repository.count();
+        return statistics.getTotalCount();
+    }
+
+    public DimensionStats getDimensionStats(int rows, int columns) {
+        return statistics.getStats(rows, columns);
+    }
+
+    public List<DimensionStats> getAllDimensionStats() {
+        return statistics.getAllStats();
+    }
+
+    public CacheStats getCacheStats() {
+        return cache.getStats();
+    }
+
+    private record Solved(DungeonResult result, boolean persist) {
     }
 }
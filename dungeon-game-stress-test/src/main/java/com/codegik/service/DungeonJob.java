@@ -0,0 +1,115 @@
+package com.codegik.service;
+
+import com.codegik.dto.DungeonJobResponse;
+import com.codegik.dto.JobStatus;
+import com.codegik.entity.DungeonResult;
+import com.codegik.game.DungeonGrid;
+
+import java.time.Instant;
+
+/**
+ * In-memory state of one asynchronous calculation. Workers publish progress through volatile
+ * fields so status polls never block on the solver. The grid is released once the job finishes.
+ */
+public class DungeonJob {
+
+    private final String id;
+    private final int rows;
+    private final int columns;
+    private final Instant submittedAt;
+    private volatile DungeonGrid grid;
+    private volatile JobStatus status = JobStatus.QUEUED;
+    private volatile int rowsDone;
+    private volatile Integer result;
+    private volatile Long resultId;
+    private volatile String error;
+    private volatile Instant finishedAt;
+
+    DungeonJob(String id, DungeonGrid grid) {
+        this.id = id;
+        this.grid = grid;
+        this.rows = grid.getRows();
+        this.columns = grid.getColumns();
+        this.submittedAt = Instant.now();
+    }
+
+    DungeonGrid start() {
+        status = JobStatus.RUNNING;
+        return grid;
+    }
+
+    void progress(int rowsDone) {
+        this.rowsDone = rowsDone;
+    }
+
+    void succeed(DungeonResult saved) {
+        result = saved.getResult();
+        resultId = saved.getId();
+        rowsDone = rows;
+        finish(JobStatus.SUCCEEDED);
+    }
+
+    void fail(String error) {
+        this.error = error;
+        finish(JobStatus.FAILED);
+    }
+
+    private void finish(JobStatus status) {
+        grid.release();
+        grid = null;
+        finishedAt = Instant.now();
+        this.status = status;
+    }
+
+    boolean isExpired(Instant cutoff) {
+        Instant finished = finishedAt;
+        return finished != null && finished.isBefore(cutoff);
+    }
+
+    // Status is written last on completion and read first here, so a finished snapshot carries its result.
+    public DungeonJobResponse toResponse() {
+        JobStatus current = status;
+        return new DungeonJobResponse(id, current, rows, columns, rowsDone, result, resultId, error,
+            submittedAt, finishedAt);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public Instant getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public JobStatus getStatus() {
+        return status;
+    }
+
+    public int getRowsDone() {
+        return rowsDone;
+    }
+
+    public Integer getResult() {
+        return result;
+    }
+
+    public Long getResultId() {
+        return resultId;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+}
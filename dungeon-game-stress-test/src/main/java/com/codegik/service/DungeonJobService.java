@@ -0,0 +1,92 @@
+package com.codegik.service;
+
+import com.codegik.game.DungeonGrid;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs calculations for dungeons too large to solve within a request. Jobs go to a fixed pool of
+ * workers behind a bounded queue; once the queue is full new submissions are rejected instead of
+ * piling up. Finished jobs stay pollable for the configured TTL and are then evicted.
+ */
+@Service
+public class DungeonJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(DungeonJobService.class);
+
+    private final DungeonGameService dungeonGameService;
+    private final Duration ttl;
+    private final ThreadPoolExecutor workers;
+    private final Map<String, DungeonJob> jobs = new ConcurrentHashMap<>();
+
+    public DungeonJobService(DungeonGameService dungeonGameService,
+                             @Value("${dungeon.jobs.workers:2}") int workerCount,
+                             @Value("${dungeon.jobs.max-queue-depth:100}") int maxQueueDepth,
+                             @Value("${dungeon.jobs.ttl-seconds:600}") long ttlSeconds) {
+        this.dungeonGameService = dungeonGameService;
+        this.ttl = Duration.ofSeconds(ttlSeconds);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(maxQueueDepth),
+            runnable -> {
+                Thread thread = new Thread(runnable, "dungeon-job-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public DungeonJob submit(DungeonGrid grid) {
+        DungeonJob job = new DungeonJob(UUID.randomUUID().toString(), grid);
+        jobs.put(job.getId(), job);
+        try {
+            workers.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            grid.release();
+            throw new JobQueueFullException("Job queue is full (" + workers.getQueue().size() + " waiting)");
+        }
+        return job;
+    }
+
+    public Optional<DungeonJob> getJob(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    private void run(DungeonJob job) {
+        DungeonGrid grid = job.start();
+        try {
+            job.succeed(dungeonGameService.calculateAndSave(grid, job::progress));
+        } catch (Exception e) {
+            log.warn("Dungeon job {} failed", job.getId(), e);
+            job.fail(e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${dungeon.jobs.eviction-interval-ms:60000}")
+    public void evictExpired() {
+        Instant cutoff = Instant.now().minus(ttl);
+        jobs.values().removeIf(job -> job.isExpired(cutoff));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+}
@@ -0,0 +1,168 @@
+package com.codegik.service;
+
+import com.codegik.dto.CacheStats;
+import com.codegik.game.DungeonGrid;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded LRU of minimum-HP results keyed by grid content. Entries are weighed by cell count, so
+ * the bound is roughly the number of cached cells regardless of how grid sizes are mixed. Lookups
+ * compare the full grid, a hash collision can never return another dungeon's result. Guarded by a
+ * ReentrantLock rather than synchronized so virtual threads are not pinned to their carrier.
+ */
+@Component
+public class DungeonResultCache {
+
+    private static final int ENTRY_OVERHEAD = 16;
+
+    private final long maxWeight;
+    private final LinkedHashMap<GridKey, Integer> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private final ReentrantLock lock = new ReentrantLock();
+    private long weight;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public DungeonResultCache(@Value("${dungeon.cache.max-weight:50000000}") long maxWeight) {
+        this.maxWeight = maxWeight;
+    }
+
+    public boolean isEnabled() {
+        return maxWeight > 0;
+    }
+
+    public Integer get(DungeonGrid grid) {
+        if (!isEnabled()) {
+            return null;
+        }
+        GridKey key = GridKey.lookup(grid);
+        Integer result;
+        lock.lock();
+        try {
+            result = entries.get(key);
+        } finally {
+            lock.unlock();
+        }
+        if (result == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return result;
+    }
+
+    public void put(DungeonGrid grid, int result) {
+        long entryWeight = weightOf(grid.size());
+        if (!isEnabled() || entryWeight > maxWeight) {
+            return;
+        }
+        GridKey key = GridKey.copyOf(grid);
+        lock.lock();
+        try {
+            if (entries.put(key, result) == null) {
+                weight += entryWeight;
+            }
+            Iterator<Map.Entry<GridKey, Integer>> eldest = entries.entrySet().iterator();
+            while (weight > maxWeight && eldest.hasNext()) {
+                GridKey evicted = eldest.next().getKey();
+                eldest.remove();
+                weight -= weightOf(evicted.length);
+                evictions.increment();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void clear() {
+        lock.lock();
+        try {
+            entries.clear();
+            weight = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public CacheStats getStats() {
+        int size;
+        long currentWeight;
+        lock.lock();
+        try {
+            size = entries.size();
+            currentWeight = weight;
+        } finally {
+            lock.unlock();
+        }
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), size, currentWeight, maxWeight);
+    }
+
+    private static long weightOf(int cells) {
+        return (long) cells + ENTRY_OVERHEAD;
+    }
+
+    private static final class GridKey {
+
+        private final int rows;
+        private final int columns;
+        private final int[] cells;
+        private final int length;
+        private final int hash;
+
+        private GridKey(int rows, int columns, int[] cells, int length, int hash) {
+            this.rows = rows;
+            this.columns = columns;
+            this.cells = cells;
+            this.length = length;
+            this.hash = hash;
+        }
+
+        // Wraps the grid's own buffer, only used for the duration of a lookup.
+        static GridKey lookup(DungeonGrid grid) {
+            return new GridKey(grid.getRows(), grid.getColumns(), grid.getCells(), grid.size(), hash(grid));
+        }
+
+        static GridKey copyOf(DungeonGrid grid) {
+            int length = grid.size();
+            return new GridKey(grid.getRows(), grid.getColumns(), Arrays.copyOf(grid.getCells(), length), length, hash(grid));
+        }
+
+        private static int hash(DungeonGrid grid) {
+            int[] cells = grid.getCells();
+            long h = grid.getRows() * 0x9E3779B97F4A7C15L + grid.getColumns();
+            for (int i = 0, size = grid.size(); i < size; i++) {
+                h = (h ^ cells[i]) * 0xFF51AFD7ED558CCDL;
+            }
+            h ^= h >>> 33;
+            return (int) (h ^ (h >>> 32));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof GridKey other)) {
+                return false;
+            }
+            return hash == other.hash
+                && rows == other.rows
+                && columns == other.columns
+                && Arrays.equals(cells, 0, length, other.cells, 0, other.length);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.codegik.service;
+
+import com.codegik.dto.CellPatch;
+import com.codegik.dto.DungeonSessionResponse;
+import com.codegik.game.DungeonGrid;
+import com.codegik.game.IncrementalDungeon;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Editing sessions that keep a dungeon's full dp table in memory so cell patches are re-solved
+ * incrementally. The store is an LRU bounded by dp cells held, like the result cache; sessions
+ * idle longer than the TTL are evicted on a schedule. Sessions are not persisted, an evicted
+ * session answers 404 and the client uploads the grid again.
+ */
+@Service
+public class DungeonSessionService {
+
+    private final long maxWeight;
+    private final long idleTtlNanos;
+    private final LinkedHashMap<String, Session> sessions = new LinkedHashMap<>(64, 0.75f, true);
+    private final ReentrantLock lock = new ReentrantLock();
+    private long weight;
+
+    public DungeonSessionService(@Value("${dungeon.sessions.max-weight:10000000}") long maxWeight,
+                                 @Value("${dungeon.sessions.idle-ttl-seconds:900}") long idleTtlSeconds) {
+        this.maxWeight = maxWeight;
+        this.idleTtlNanos = Duration.ofSeconds(idleTtlSeconds).toNanos();
+    }
+
+    public DungeonSessionResponse create(DungeonGrid grid) {
+        long sessionWeight = weightOf(grid);
+        if (sessionWeight > maxWeight) {
+            throw new IllegalArgumentException("Dungeon of " + grid.size() + " cells is too large for a session");
+        }
+        Session session = new Session(UUID.randomUUID().toString(), new IncrementalDungeon(grid), sessionWeight);
+        lock.lock();
+        try {
+            sessions.put(session.id, session);
+            weight += sessionWeight;
+            Iterator<Session> eldest = sessions.values().iterator();
+            while (weight > maxWeight && eldest.hasNext()) {
+                weight -= eldest.next().weight;
+                eldest.remove();
+            }
+        } finally {
+            lock.unlock();
+        }
+        return session.toResponse(session.dungeon.getRecomputedCells());
+    }
+
+    public Optional<DungeonSessionResponse> get(String id) {
+        return find(id).map(session -> {
+            session.lock.lock();
+            try {
+                return session.toResponse(0);
+            } finally {
+                session.lock.unlock();
+            }
+        });
+    }
+
+    /**
+     * Applies the patches and returns the new result, or empty when the session does not exist.
+     * Patches outside the grid are rejected with IllegalArgumentException before any is applied.
+     */
+    public Optional<DungeonSessionResponse> patch(String id, List<CellPatch> patches) {
+        int[][] edits = new int[patches.size()][];
+        for (int i = 0; i < edits.length; i++) {
+            CellPatch patch = patches.get(i);
+            edits[i] = new int[]{patch.getRow(), patch.getColumn(), patch.getValue()};
+        }
+        return find(id).map(session -> {
+            session.lock.lock();
+            try {
+                IncrementalDungeon dungeon = session.dungeon;
+                long before = dungeon.getRecomputedCells();
+                dungeon.setAll(edits);
+                return session.toResponse(dungeon.getRecomputedCells() - before);
+            } finally {
+                session.lock.unlock();
+            }
+        });
+    }
+
+    public boolean delete(String id) {
+        lock.lock();
+        try {
+            Session removed = sessions.remove(id);
+            if (removed == null) {
+                return false;
+            }
+            weight -= removed.weight;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${dungeon.sessions.eviction-interval-ms:60000}")
+    public void evictIdle() {
+        long cutoff = System.nanoTime() - idleTtlNanos;
+        lock.lock();
+        try {
+            Iterator<Session> eldest = sessions.values().iterator();
+            while (eldest.hasNext()) {
+                Session session = eldest.next();
+                // Access order puts the least recently used first, so stop at the first live one
+                if (session.lastAccess - cutoff > 0) {
+                    break;
+                }
+                weight -= session.weight;
+                eldest.remove();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Optional<Session> find(String id) {
+        lock.lock();
+        try {
+            Session session = sessions.get(id);
+            if (session != null) {
+                session.lastAccess = System.nanoTime();
+            }
+            return Optional.ofNullable(session);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // The dp table has (rows + 1) * (columns + 1) entries next to the copy of the cells
+    private static long weightOf(DungeonGrid grid) {
+        return (long) grid.size() + (long) (grid.getRows() + 1) * (grid.getColumns() + 1);
+    }
+
+    private static final class Session {
+
+        private final String id;
+        private final IncrementalDungeon dungeon;
+        private final long weight;
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile long lastAccess = System.nanoTime();
+
+        Session(String id, IncrementalDungeon dungeon, long weight) {
+            this.id = id;
+            this.dungeon = dungeon;
+            this.weight = weight;
+        }
+
+        DungeonSessionResponse toResponse(long recomputedCells) {
+            return new DungeonSessionResponse(id, dungeon.getRows(), dungeon.getColumns(),
+                dungeon.getMinimumHP(), recomputedCells);
+        }
+    }
+}
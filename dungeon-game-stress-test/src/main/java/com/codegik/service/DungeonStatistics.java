@@ -0,0 +1,188 @@
+package com.codegik.service;
+
+import com.codegik.dto.DimensionStats;
+import com.codegik.entity.DungeonResult;
+import jakarta.annotation.PostConstruct;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Running count/sum/min/max of results per (rows, columns), so the stats endpoints never run an
+ * aggregate over dungeon_results. Seeded with one GROUP BY at startup and then updated whenever a
+ * result row is written by this instance; each write is also passed on to {@link ResultDistribution}.
+ */
+@Component
+public class DungeonStatistics {
+
+    private static final String SEED_SQL =
+        "SELECT rows, columns, COUNT(*) AS total, SUM(result) AS total_result, MIN(result) AS min_result, "
+            + "MAX(result) AS max_result FROM dungeon_results GROUP BY rows, columns";
+    private static final String EXTREMES_SQL =
+        "SELECT MIN(result) AS min_result, MAX(result) AS max_result FROM dungeon_results WHERE rows = ? AND columns = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ResultDistribution distribution;
+    private final ConcurrentHashMap<Long, Bucket> buckets = new ConcurrentHashMap<>();
+    private final LongAdder totalCount = new LongAdder();
+    // Records update min/max under the read side; a reseed takes the write side to start and to finish
+    // tracking the results recorded while its query runs, but not across the query itself
+    private final ReadWriteLock extremesLock = new ReentrantReadWriteLock();
+
+    public DungeonStatistics(JdbcTemplate jdbcTemplate, ResultDistribution distribution) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.distribution = distribution;
+    }
+
+    @PostConstruct
+    void seed() {
+        jdbcTemplate.query(SEED_SQL, rs -> {
+            int rows = rs.getInt("rows");
+            int columns = rs.getInt("columns");
+            long count = rs.getLong("total");
+            bucket(rows, columns).add(count, rs.getLong("total_result"), rs.getInt("min_result"), rs.getInt("max_result"));
+            totalCount.add(count);
+        });
+    }
+
+    public void record(DungeonResult result) {
+        int value = result.getResult();
+        Lock extremes = extremesLock.readLock();
+        extremes.lock();
+        try {
+            bucket(result.getRows(), result.getColumns()).add(1, value, value, value);
+        } finally {
+            extremes.unlock();
+        }
+        totalCount.increment();
+        distribution.record(result);
+    }
+
+    public void recordAll(List<DungeonResult> results) {
+        for (DungeonResult result : results) {
+            record(result);
+        }
+    }
+
+    // Takes the rows of a dropped partition out of the totals. Min and max cannot be taken back this
+    // way; reseedExtremes recomputes them once the partition is gone.
+    public void forget(int rows, int columns, long count, long totalResult) {
+        Bucket bucket = buckets.get(key(rows, columns));
+        if (bucket != null) {
+            bucket.remove(count, totalResult);
+            totalCount.add(-count);
+        }
+    }
+
+    /**
+     * Recomputes min and max for one (rows, columns) from the rows dungeon_results still holds, after
+     * a dropped partition took some of them away. Results recorded while the query runs are tracked
+     * on the side and folded in, since the query may not see their rows.
+     */
+    public void reseedExtremes(int rows, int columns) {
+        Bucket bucket = buckets.get(key(rows, columns));
+        if (bucket == null) {
+            return;
+        }
+        Lock extremes = extremesLock.writeLock();
+        extremes.lock();
+        try {
+            bucket.beginReseed();
+        } finally {
+            extremes.unlock();
+        }
+        int[] remaining = jdbcTemplate.query(EXTREMES_SQL, rs -> {
+            rs.next();
+            int min = rs.getInt("min_result");
+            // MIN and MAX are NULL once no rows of this shape are left
+            return rs.wasNull() ? new int[]{Integer.MAX_VALUE, Integer.MIN_VALUE} : new int[]{min, rs.getInt("max_result")};
+        }, rows, columns);
+        extremes.lock();
+        try {
+            bucket.finishReseed(remaining[0], remaining[1]);
+        } finally {
+            extremes.unlock();
+        }
+    }
+
+    public long getTotalCount() {
+        return totalCount.sum();
+    }
+
+    public DimensionStats getStats(int rows, int columns) {
+        Bucket bucket = buckets.get(key(rows, columns));
+        return bucket == null ? null : bucket.snapshot(rows, columns);
+    }
+
+    public Double getAverage(int rows, int columns) {
+        DimensionStats stats = getStats(rows, columns);
+        return stats == null || stats.getCount() == 0 ? null : stats.getAverage();
+    }
+
+    public List<DimensionStats> getAllStats() {
+        return buckets.entrySet().stream()
+            .map(entry -> entry.getValue().snapshot((int) (entry.getKey() >>> 32), (int) (long) entry.getKey()))
+            .sorted(Comparator.comparingInt(DimensionStats::getRows).thenComparingInt(DimensionStats::getColumns))
+            .toList();
+    }
+
+    private Bucket bucket(int rows, int columns) {
+        return buckets.computeIfAbsent(key(rows, columns), k -> new Bucket());
+    }
+
+    private static long key(int rows, int columns) {
+        return ((long) rows << 32) | (columns & 0xFFFFFFFFL);
+    }
+
+    private static final class Bucket {
+
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+        private final AtomicInteger min = new AtomicInteger(Integer.MAX_VALUE);
+        private final AtomicInteger max = new AtomicInteger(Integer.MIN_VALUE);
+
+        // Non-null while reseedExtremes runs its query
+        private AtomicInteger pendingMin;
+        private AtomicInteger pendingMax;
+
+        void add(long n, long total, int low, int high) {
+            sum.add(total);
+            min.accumulateAndGet(low, Math::min);
+            max.accumulateAndGet(high, Math::max);
+            if (pendingMin != null) {
+                pendingMin.accumulateAndGet(low, Math::min);
+                pendingMax.accumulateAndGet(high, Math::max);
+            }
+            count.add(n);
+        }
+
+        void beginReseed() {
+            pendingMin = new AtomicInteger(Integer.MAX_VALUE);
+            pendingMax = new AtomicInteger(Integer.MIN_VALUE);
+        }
+
+        void finishReseed(int low, int high) {
+            min.set(Math.min(low, pendingMin.get()));
+            max.set(Math.max(high, pendingMax.get()));
+            pendingMin = null;
+            pendingMax = null;
+        }
+
+        void remove(long n, long total) {
+            sum.add(-total);
+            count.add(-n);
+        }
+
+        DimensionStats snapshot(int rows, int columns) {
+            return new DimensionStats(rows, columns, count.sum(), sum.sum(), min.get(), max.get());
+        }
+    }
+}
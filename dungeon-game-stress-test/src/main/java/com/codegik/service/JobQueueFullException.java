@@ -0,0 +1,8 @@
+package com.codegik.service;
+
+public class JobQueueFullException extends RuntimeException {
+
+    public JobQueueFullException(String message) {
+        super(message);
+    }
+}
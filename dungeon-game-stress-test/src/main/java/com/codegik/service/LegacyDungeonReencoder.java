@@ -0,0 +1,56 @@
+package com.codegik.service;
+
+import com.codegik.repository.DungeonResultInserter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Brings dungeons migrated from the JSON era onto the binary encoding and its content hash, one
+ * transaction per batch, so repeat submissions of those grids deduplicate again. Runs in the
+ * background after startup instead of in schema.sql, which cannot produce the deflated encoding.
+ * A batch that fails, for instance because the same grid was inserted between the hash lookup and
+ * the update, is retried on the next run; once a walk finds nothing left the task stops.
+ */
+@Component
+public class LegacyDungeonReencoder {
+
+    private static final Logger log = LoggerFactory.getLogger(LegacyDungeonReencoder.class);
+
+    private final DungeonResultInserter inserter;
+    private final int batchSize;
+    private volatile long after = 0;
+    private volatile boolean done;
+
+    public LegacyDungeonReencoder(DungeonResultInserter inserter,
+                                  @Value("${dungeon.legacy.reencode-batch-size:500}") int batchSize) {
+        this.inserter = inserter;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${dungeon.legacy.reencode-interval-ms:60000}")
+    public void reencode() {
+        if (done) {
+            return;
+        }
+        try {
+            long last;
+            while ((last = inserter.reencodeLegacy(after, batchSize)) >= 0) {
+                after = last;
+            }
+            done = true;
+            if (after > 0) {
+                log.info("Re-encoded the legacy dungeons up to id {}", after);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Re-encoding legacy dungeons stopped after id {}; retrying on the next run", after, e);
+        }
+    }
+
+    public boolean isDone() {
+        return done;
+    }
+}
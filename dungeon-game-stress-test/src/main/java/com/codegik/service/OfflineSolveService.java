@@ -0,0 +1,124 @@
+package com.codegik.service;
+
+import com.codegik.entity.DungeonResult;
+import com.codegik.game.MappedDungeonSolver;
+import com.codegik.repository.DungeonResultInserter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Admin path for dungeons too large for the heap. The grid is solved from a memory-mapped file by
+ * {@link MappedDungeonSolver}, either a file already under the configured directory or an upload
+ * spooled to a temp file first. Both are disabled until dungeon.offline.directory is configured,
+ * and uploads larger than dungeon.offline.max-upload-bytes are refused before they fill the disk.
+ * The result is stored with its dimensions but without dungeon_data; the content hash covers the
+ * header and cells so re-solving the same file adds a submission rather than a second dungeon.
+ */
+@Service
+public class OfflineSolveService {
+
+    // Keeps file-derived hashes apart from hashes of DungeonStorageCodec bytes
+    private static final byte[] HASH_DOMAIN = {'f', 'i', 'l', 'e', 0};
+
+    private final DungeonResultInserter resultInserter;
+    private final DungeonStatistics statistics;
+    private final DatabaseConcurrencyLimiter dbLimiter;
+    private final Path directory;
+    private final Path tempDirectory;
+    private final long maxUploadBytes;
+
+    public OfflineSolveService(DungeonResultInserter resultInserter,
+                               DungeonStatistics statistics,
+                               DatabaseConcurrencyLimiter dbLimiter,
+                               @Value("${dungeon.offline.directory:}") String directory,
+                               @Value("${dungeon.offline.temp-directory:${java.io.tmpdir}}") String tempDirectory,
+                               @Value("${dungeon.offline.max-upload-bytes:17179869184}") long maxUploadBytes) {
+        this.resultInserter = resultInserter;
+        this.statistics = statistics;
+        this.dbLimiter = dbLimiter;
+        this.directory = directory.isBlank() ? null : Path.of(directory).toAbsolutePath().normalize();
+        this.tempDirectory = Path.of(tempDirectory);
+        this.maxUploadBytes = maxUploadBytes;
+    }
+
+    /**
+     * Solves a file by name relative to dungeon.offline.directory. Solving server-side files is
+     * disabled while the directory is not configured.
+     */
+    public DungeonResult solveFile(String name) throws IOException {
+        requireEnabled();
+        Path file = directory.resolve(name).normalize();
+        if (!file.startsWith(directory) || !Files.isRegularFile(file)) {
+            throw new IllegalArgumentException("No dungeon file " + name);
+        }
+        return solve(file);
+    }
+
+    /**
+     * Spools the application/x-dungeon body to disk so it never has to fit in the heap. A declared
+     * length over the limit is refused before anything is written; a body without one is counted
+     * while it is copied. {@code declaredBytes} is negative when the length is unknown.
+     */
+    public DungeonResult solveUpload(InputStream body, long declaredBytes) throws IOException {
+        requireEnabled();
+        if (declaredBytes > maxUploadBytes) {
+            throw new UploadTooLargeException("Upload of " + declaredBytes + " bytes is over the limit of " + maxUploadBytes);
+        }
+        Files.createDirectories(tempDirectory);
+        Path file = Files.createTempFile(tempDirectory, "dungeon-", ".bin");
+        try {
+            spool(body, file);
+            return solve(file);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private void spool(InputStream body, Path file) throws IOException {
+        byte[] buffer = new byte[1 << 16];
+        long total = 0;
+        try (OutputStream out = Files.newOutputStream(file)) {
+            for (int read = body.read(buffer); read >= 0; read = body.read(buffer)) {
+                total += read;
+                if (total > maxUploadBytes) {
+                    throw new UploadTooLargeException("Upload is over the limit of " + maxUploadBytes + " bytes");
+                }
+                out.write(buffer, 0, read);
+            }
+        }
+    }
+
+    private void requireEnabled() {
+        if (directory == null) {
+            throw new OfflineSolvingDisabledException("Offline solving is disabled, set dungeon.offline.directory");
+        }
+    }
+
+    private DungeonResult solve(Path file) throws IOException {
+        MessageDigest digest = sha256();
+        digest.update(HASH_DOMAIN);
+        MappedDungeonSolver.Solution solution = MappedDungeonSolver.solve(file, digest);
+        byte[] hash = digest.digest();
+
+        DungeonResult result = new DungeonResult(null, solution.minimumHP(), solution.rows(), solution.columns());
+        DungeonResult saved = dbLimiter.call(() -> resultInserter.insert(result, hash));
+        statistics.record(saved);
+        return saved;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.codegik.service;
+
+public class OfflineSolvingDisabledException extends RuntimeException {
+
+    public OfflineSolvingDisabledException(String message) {
+        super(message);
+    }
+}
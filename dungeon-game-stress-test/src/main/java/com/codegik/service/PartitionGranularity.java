@@ -0,0 +1,36 @@
+package com.codegik.service;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Length of one dungeon_submissions partition.
+ */
+public enum PartitionGranularity {
+    DAILY(ChronoUnit.DAYS),
+    HOURLY(ChronoUnit.HOURS);
+
+    private final ChronoUnit unit;
+
+    PartitionGranularity(ChronoUnit unit) {
+        this.unit = unit;
+    }
+
+    public LocalDateTime truncate(LocalDateTime time) {
+        return time.truncatedTo(unit);
+    }
+
+    // Start of the period after the one containing time
+    public LocalDateTime next(LocalDateTime time) {
+        return truncate(time).plus(1, unit);
+    }
+
+    // Daily partitions are named by date; hourly ones, and gap fillers not starting at midnight, by date and hour
+    String partitionName(LocalDateTime start) {
+        String suffix = this == DAILY && start.equals(start.truncatedTo(ChronoUnit.DAYS))
+            ? start.format(DateTimeFormatter.BASIC_ISO_DATE)
+            : start.format(DateTimeFormatter.ofPattern("yyyyMMddHH"));
+        return "dungeon_submissions_p" + suffix;
+    }
+}
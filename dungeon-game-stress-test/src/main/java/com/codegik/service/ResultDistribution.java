@@ -0,0 +1,319 @@
+package com.codegik.service;
+
+import com.codegik.dto.ResultDistributionStats;
+import com.codegik.entity.DungeonResult;
+import com.codegik.repository.DungeonResultStreamer;
+import jakarta.annotation.PostConstruct;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramIterationValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.DataFormatException;
+
+/**
+ * Histogram of minimum-HP results per dimension bucket and time window, so distribution queries
+ * never scan dungeon_results. Results are recorded as they are written, alongside
+ * {@link DungeonStatistics}, both into the window queries read from and into a per-second staging
+ * area. A checkpoint folds the staged seconds that ended before its cutoff into the checkpointed
+ * copy of their window and writes the windows that changed, together with the cutoff, to
+ * result_distribution_checkpoints. The cutoff lags the clock so inserts still in flight are staged
+ * by then. Every checkpoint therefore holds exactly the recorded rows created before its cutoff,
+ * and startup replays rows created from the latest cutoff on. Windows older than the retention are
+ * dropped from memory and from the table.
+ */
+@Component
+public class ResultDistribution {
+
+    private static final Logger log = LoggerFactory.getLogger(ResultDistribution.class);
+
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private static final String LOAD_SQL =
+        "SELECT dimension_bucket, window_start, histogram, cutoff FROM result_distribution_checkpoints WHERE window_start >= ?";
+    // One statement, so two instances or a checkpoint racing load() cannot both insert the same key
+    private static final String UPSERT_SQL =
+        "INSERT INTO result_distribution_checkpoints (histogram, cutoff, dimension_bucket, window_start) VALUES (?, ?, ?, ?) "
+            + "ON CONFLICT (dimension_bucket, window_start) DO UPDATE SET histogram = EXCLUDED.histogram, cutoff = EXCLUDED.cutoff";
+    // H2, which the tests run on, has no ON CONFLICT ... DO UPDATE
+    private static final String H2_UPSERT_SQL =
+        "MERGE INTO result_distribution_checkpoints (histogram, cutoff, dimension_bucket, window_start) "
+            + "KEY (dimension_bucket, window_start) VALUES (?, ?, ?, ?)";
+    private static final String EXPIRE_SQL =
+        "DELETE FROM result_distribution_checkpoints WHERE window_start < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DungeonResultStreamer resultStreamer;
+    private final long windowSeconds;
+    private final int retainedWindows;
+    private final long checkpointLagSeconds;
+    private volatile String upsertSql;
+    private final ConcurrentSkipListMap<Long, Window> windows = new ConcurrentSkipListMap<>();
+    // Epoch second of created_at -> results recorded for it and not yet folded into a checkpoint
+    private final ConcurrentSkipListMap<Long, Buckets> staged = new ConcurrentSkipListMap<>();
+    // Recorders stage under the read side; the checkpoint takes the write side to detach staged
+    // seconds, so no recorder still holds one of them while it is folded
+    private final ReadWriteLock stagingLock = new ReentrantReadWriteLock();
+
+    public ResultDistribution(JdbcTemplate jdbcTemplate,
+                              DungeonResultStreamer resultStreamer,
+                              @Value("${dungeon.distribution.window-minutes:60}") long windowMinutes,
+                              @Value("${dungeon.distribution.retained-windows:168}") int retainedWindows,
+                              @Value("${dungeon.distribution.checkpoint-lag-ms:10000}") long checkpointLagMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.resultStreamer = resultStreamer;
+        this.windowSeconds = windowMinutes * 60;
+        this.retainedWindows = retainedWindows;
+        this.checkpointLagSeconds = (checkpointLagMillis + 999) / 1000;
+    }
+
+    @PostConstruct
+    void load() {
+        LocalDateTime retentionStart = windowStart(oldestRetainedWindow());
+        LocalDateTime[] latestCutoff = {retentionStart};
+        jdbcTemplate.query(LOAD_SQL, rs -> {
+            Window window = window(windowOf(rs.getTimestamp("window_start").toLocalDateTime()));
+            try {
+                int bucket = DimensionBucket.named(rs.getString("dimension_bucket")).getIndex();
+                Histogram stored = Histogram.decodeFromCompressedByteBuffer(ByteBuffer.wrap(rs.getBytes("histogram")), 0);
+                window.live.histogram(bucket).add(stored);
+                window.checkpointed(bucket).add(stored);
+            } catch (DataFormatException | IllegalArgumentException e) {
+                log.warn("Skipping unreadable distribution checkpoint for window {}", window.index, e);
+            }
+            LocalDateTime cutoff = rs.getTimestamp("cutoff").toLocalDateTime();
+            if (cutoff.isAfter(latestCutoff[0])) {
+                latestCutoff[0] = cutoff;
+            }
+        }, Timestamp.valueOf(retentionStart));
+
+        // Streamed in fetch-size chunks; the replayed rows are staged and land in the next checkpoint
+        resultStreamer.streamCreatedSince(latestCutoff[0], this::record);
+    }
+
+    public void record(DungeonResult result) {
+        LocalDateTime createdAt = result.getCreatedAt();
+        long index = windowOf(createdAt);
+        if (index < oldestRetainedWindow()) {
+            return;
+        }
+        int bucket = DimensionBucket.of(result.getRows(), result.getColumns()).getIndex();
+        int value = result.getResult();
+        window(index).live.histogram(bucket).recordValue(value);
+
+        Lock staging = stagingLock.readLock();
+        staging.lock();
+        try {
+            staged.computeIfAbsent(createdAt.toEpochSecond(ZoneOffset.UTC), second -> new Buckets())
+                .histogram(bucket).recordValue(value);
+        } finally {
+            staging.unlock();
+        }
+    }
+
+    /**
+     * Distribution of results created in [from, to), one entry per dimension bucket, or per bucket
+     * and window when {@code perWindow} is set. Windows are whole, so a range that starts or ends
+     * inside a window includes all of that window. {@code bucket} restricts the result to one
+     * dimension bucket when it is not null; otherwise buckets without results are left out.
+     */
+    public List<ResultDistributionStats> query(LocalDateTime from, LocalDateTime to, DimensionBucket bucket,
+                                               boolean perWindow, int bins) {
+        Map<Long, Window> range = windows.subMap(windowOf(from), true, windowOf(to.minusNanos(1)), true);
+        List<ResultDistributionStats> stats = new ArrayList<>();
+        for (DimensionBucket dimensions : DimensionBucket.values()) {
+            if (bucket != null && bucket != dimensions) {
+                continue;
+            }
+            if (perWindow) {
+                for (Window window : range.values()) {
+                    Histogram merged = window.live.snapshot(dimensions.getIndex());
+                    if (merged.getTotalCount() > 0) {
+                        stats.add(summarize(dimensions, windowStart(window.index), windowStart(window.index + 1), merged, bins));
+                    }
+                }
+            } else {
+                Histogram merged = new Histogram(SIGNIFICANT_DIGITS);
+                for (Window window : range.values()) {
+                    merged.add(window.live.snapshot(dimensions.getIndex()));
+                }
+                if (bucket != null || merged.getTotalCount() > 0) {
+                    stats.add(summarize(dimensions, from, to, merged, bins));
+                }
+            }
+        }
+        return stats;
+    }
+
+    public LocalDateTime getRetentionStart() {
+        return windowStart(oldestRetainedWindow());
+    }
+
+    @Scheduled(fixedDelayString = "${dungeon.distribution.checkpoint-interval-ms:60000}")
+    public void checkpoint() {
+        long oldest = oldestRetainedWindow();
+        windows.headMap(oldest).clear();
+        jdbcTemplate.update(EXPIRE_SQL, Timestamp.valueOf(windowStart(oldest)));
+
+        long cutoffSecond = LocalDateTime.now().toEpochSecond(ZoneOffset.UTC) - checkpointLagSeconds;
+        Map<Long, Buckets> due;
+        Lock staging = stagingLock.writeLock();
+        staging.lock();
+        try {
+            ConcurrentNavigableMap<Long, Buckets> head = staged.headMap(cutoffSecond);
+            due = new TreeMap<>(head);
+            head.clear();
+        } finally {
+            staging.unlock();
+        }
+
+        Map<Long, BitSet> changed = new HashMap<>();
+        for (Map.Entry<Long, Buckets> second : due.entrySet()) {
+            Window window = windows.get(Math.floorDiv(second.getKey(), windowSeconds));
+            if (window == null) {
+                continue;
+            }
+            for (DimensionBucket dimensions : DimensionBucket.values()) {
+                ConcurrentHistogram recorded = second.getValue().histograms.get(dimensions.getIndex());
+                if (recorded != null) {
+                    window.checkpointed(dimensions.getIndex()).add(recorded);
+                    changed.computeIfAbsent(window.index, index -> new BitSet()).set(dimensions.getIndex());
+                }
+            }
+        }
+
+        Timestamp cutoff = Timestamp.valueOf(LocalDateTime.ofEpochSecond(cutoffSecond, 0, ZoneOffset.UTC));
+        changed.forEach((index, buckets) -> {
+            Window window = windows.get(index);
+            for (int bucket = buckets.nextSetBit(0); bucket >= 0; bucket = buckets.nextSetBit(bucket + 1)) {
+                Histogram snapshot = window.checkpointed(bucket);
+                ByteBuffer buffer = ByteBuffer.allocate(snapshot.getNeededByteBufferCapacity());
+                byte[] encoded = Arrays.copyOf(buffer.array(), snapshot.encodeIntoCompressedByteBuffer(buffer));
+
+                Object[] args = {encoded, cutoff, DimensionBucket.values().get(bucket).getName(),
+                    Timestamp.valueOf(windowStart(index))};
+                jdbcTemplate.update(upsertSql(), args);
+            }
+        });
+    }
+
+    private String upsertSql() {
+        if (upsertSql == null) {
+            String product = jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            upsertSql = "H2".equals(product) ? H2_UPSERT_SQL : UPSERT_SQL;
+        }
+        return upsertSql;
+    }
+
+    private static ResultDistributionStats summarize(DimensionBucket dimensions, LocalDateTime from, LocalDateTime to,
+                                                     Histogram histogram, int bins) {
+        long count = histogram.getTotalCount();
+        if (count == 0) {
+            return new ResultDistributionStats(dimensions.getName(), from, to, 0, 0, 0, 0, 0, 0, 0, List.of());
+        }
+        long min = histogram.getMinValue();
+        long max = histogram.getMaxValue();
+        long width = Math.max(1, (max - min + bins) / bins);
+        long[] counts = new long[(int) ((max - min) / width) + 1];
+        for (HistogramIterationValue value : histogram.recordedValues()) {
+            int bin = (int) ((Math.min(max, value.getValueIteratedTo()) - min) / width);
+            counts[bin] += value.getCountAtValueIteratedTo();
+        }
+        List<ResultDistributionStats.Bin> histogramBins = new ArrayList<>(counts.length);
+        for (int i = 0; i < counts.length; i++) {
+            histogramBins.add(new ResultDistributionStats.Bin(min + i * width, min + (i + 1) * width - 1, counts[i]));
+        }
+        return new ResultDistributionStats(dimensions.getName(), from, to, count, min, max, histogram.getMean(),
+            histogram.getValueAtPercentile(50), histogram.getValueAtPercentile(90),
+            histogram.getValueAtPercentile(99), histogramBins);
+    }
+
+    private Window window(long index) {
+        return windows.computeIfAbsent(index, Window::new);
+    }
+
+    private long oldestRetainedWindow() {
+        return windowOf(LocalDateTime.now()) - retainedWindows + 1;
+    }
+
+    private long windowOf(LocalDateTime time) {
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), windowSeconds);
+    }
+
+    private LocalDateTime windowStart(long index) {
+        return LocalDateTime.ofEpochSecond(index * windowSeconds, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * One histogram per dimension bucket, created on first use: most windows only ever see a few
+     * shapes, and an empty histogram still costs a counts array.
+     */
+    private static final class Buckets {
+
+        private final AtomicReferenceArray<ConcurrentHistogram> histograms =
+            new AtomicReferenceArray<>(DimensionBucket.values().size());
+
+        ConcurrentHistogram histogram(int bucket) {
+            ConcurrentHistogram histogram = histograms.get(bucket);
+            if (histogram == null) {
+                histogram = new ConcurrentHistogram(SIGNIFICANT_DIGITS);
+                if (!histograms.compareAndSet(bucket, null, histogram)) {
+                    histogram = histograms.get(bucket);
+                }
+            }
+            return histogram;
+        }
+
+        Histogram snapshot(int bucket) {
+            Histogram snapshot = new Histogram(SIGNIFICANT_DIGITS);
+            ConcurrentHistogram histogram = histograms.get(bucket);
+            if (histogram != null) {
+                snapshot.add(histogram);
+            }
+            return snapshot;
+        }
+    }
+
+    private static final class Window {
+
+        private final long index;
+        private final Buckets live = new Buckets();
+        // Only touched by load() and the checkpoint, which never run at the same time
+        private final Histogram[] checkpointed = new Histogram[DimensionBucket.values().size()];
+
+        Window(long index) {
+            this.index = index;
+        }
+
+        Histogram checkpointed(int bucket) {
+            if (checkpointed[bucket] == null) {
+                checkpointed[bucket] = new Histogram(SIGNIFICANT_DIGITS);
+            }
+            return checkpointed[bucket];
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package com.codegik.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Maintains the created_at range partitions of dungeon_submissions, the table behind the
+ * dungeon_results view. Partitions for the current period and the next few are created at startup
+ * and on a schedule, and partitions that ended before the retention cutoff are detached and dropped
+ * whole instead of deleting their rows; the running statistics forget the dropped rows and recompute
+ * min and max for the grid sizes they had. The dungeons rows, which hold the grids, are shared between
+ * submissions; the ones the dropped partition referenced are deleted in batches once nothing else
+ * points at them. There is no default partition: it would stop Postgres from scanning partitions in
+ * created_at order, so a missing partition fails the insert instead, and startup fails if the
+ * partitions cannot be created.
+ */
+@Component
+public class ResultPartitionManager {
+
+    private static final Logger log = LoggerFactory.getLogger(ResultPartitionManager.class);
+
+    private static final String LIST_SQL =
+        "SELECT c.relname, pg_get_expr(c.relpartbound, c.oid) AS bound, i.inhdetachpending AS detach_pending "
+            + "FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid "
+            + "WHERE i.inhparent = to_regclass('dungeon_submissions')";
+    private static final String FOREIGN_KEYS_SQL =
+        "SELECT conname FROM pg_constraint WHERE conrelid = to_regclass(?) AND contype = 'f'";
+    private static final int PURGE_ATTEMPTS = 3;
+    private static final Pattern RANGE_BOUND = Pattern.compile("FOR VALUES FROM \\((.+)\\) TO \\((.+)\\)");
+    private static final DateTimeFormatter BOUND_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    // Lower bound for lookups when nothing is dropped; older than any row this service wrote
+    private static final LocalDateTime UNBOUNDED_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DungeonStatistics statistics;
+    private final boolean enabled;
+    private final PartitionGranularity granularity;
+    private final int premake;
+    private final long retentionHours;
+    private final int purgeBatchSize;
+
+    public ResultPartitionManager(JdbcTemplate jdbcTemplate,
+                                  DungeonStatistics statistics,
+                                  @Value("${dungeon.partitions.enabled:true}") boolean enabled,
+                                  @Value("${dungeon.partitions.granularity:DAILY}") PartitionGranularity granularity,
+                                  @Value("${dungeon.partitions.premake:4}") int premake,
+                                  @Value("${dungeon.partitions.retention-hours:168}") long retentionHours,
+                                  @Value("${dungeon.partitions.purge-batch-size:1000}") int purgeBatchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.statistics = statistics;
+        this.enabled = enabled;
+        this.granularity = granularity;
+        this.premake = premake;
+        this.retentionHours = retentionHours;
+        this.purgeBatchSize = purgeBatchSize;
+    }
+
+    /**
+     * Earliest created_at a lookup without a time range of its own reads: the start of the oldest
+     * partition the retention keeps. Bounding the query by it lets Postgres prune the partitions that
+     * ended before the cutoff and only wait for maintain() to drop them.
+     */
+    public LocalDateTime lookupStart() {
+        if (!enabled || retentionHours <= 0) {
+            return UNBOUNDED_START;
+        }
+        return granularity.truncate(LocalDateTime.now().minusHours(retentionHours));
+    }
+
+    // Runs before the web server starts, so no request can insert ahead of its partition
+    @PostConstruct
+    void createAtStartup() {
+        if (enabled) {
+            createUpcoming(LocalDateTime.now());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${dungeon.partitions.maintenance-interval-ms:600000}")
+    public void maintain() {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        createUpcoming(now);
+        if (retentionHours > 0) {
+            dropEndedBefore(now.minusHours(retentionHours));
+        }
+    }
+
+    private void createUpcoming(LocalDateTime now) {
+        LocalDateTime from = granularity.truncate(now);
+        LocalDateTime until = from;
+        for (int i = 0; i <= premake; i++) {
+            until = granularity.next(until);
+        }
+        for (Partition partition : missing(listPartitions(), from, until, granularity)) {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + quoted(partition.name())
+                + " PARTITION OF dungeon_submissions FOR VALUES FROM ('" + partition.from().format(BOUND_FORMAT)
+                + "') TO ('" + partition.to().format(BOUND_FORMAT) + "')");
+            log.info("Created partition {} for [{}, {})", partition.name(), partition.from(), partition.to());
+        }
+    }
+
+    // DETACH ... CONCURRENTLY waits out running queries instead of locking inserts out of the parent.
+    // A detach interrupted half way leaves the partition pending, which FINALIZE completes.
+    private void dropEndedBefore(LocalDateTime cutoff) {
+        for (Partition partition : listPartitions()) {
+            if (partition.to() == null || partition.to().isAfter(cutoff)) {
+                continue;
+            }
+            String name = quoted(partition.name());
+            jdbcTemplate.execute("ALTER TABLE dungeon_submissions DETACH PARTITION " + name
+                + (partition.detachPending() ? " FINALIZE" : " CONCURRENTLY"));
+            List<int[]> shapes = new ArrayList<>();
+            jdbcTemplate.query("SELECT rows, columns, COUNT(*) AS total, SUM(result) AS total_result FROM " + name
+                + " GROUP BY rows, columns", rs -> {
+                statistics.forget(rs.getInt("rows"), rs.getInt("columns"), rs.getLong("total"), rs.getLong("total_result"));
+                shapes.add(new int[]{rs.getInt("rows"), rs.getInt("columns")});
+            });
+            long purged = purgeDungeonsOf(partition.name());
+            jdbcTemplate.execute("DROP TABLE " + name);
+            for (int[] shape : shapes) {
+                statistics.reseedExtremes(shape[0], shape[1]);
+            }
+            log.info("Dropped partition {} which ended at {} and {} dungeons left without submissions",
+                partition.name(), partition.to(), purged);
+        }
+    }
+
+    // The detached table keeps its copy of the foreign key, which would block deleting the dungeons it
+    // points at, so that goes first. Its dungeon_id index then serves the keyset walk over candidates.
+    private long purgeDungeonsOf(String table) {
+        for (String constraint : jdbcTemplate.queryForList(FOREIGN_KEYS_SQL, String.class, table)) {
+            jdbcTemplate.execute("ALTER TABLE " + quoted(table) + " DROP CONSTRAINT " + quoted(constraint));
+        }
+        String candidatesSql = "SELECT DISTINCT dungeon_id FROM " + quoted(table)
+            + " WHERE dungeon_id > ? ORDER BY dungeon_id LIMIT " + purgeBatchSize;
+        long purged = 0;
+        long after = Long.MIN_VALUE;
+        while (true) {
+            List<Long> batch = jdbcTemplate.queryForList(candidatesSql, Long.class, after);
+            if (batch.isEmpty()) {
+                return purged;
+            }
+            purged += purgeOrphans(batch);
+            after = batch.get(batch.size() - 1);
+        }
+    }
+
+    /**
+     * Deletes those of {@code dungeonIds} that no dungeon_submissions row points at any more, in one
+     * statement. A submission inserted for one of them while the delete runs makes the foreign key
+     * check fail the statement; the retry then sees that submission and keeps the dungeon.
+     */
+    int purgeOrphans(List<Long> dungeonIds) {
+        String sql = "DELETE FROM dungeons WHERE id IN (" + String.join(", ", Collections.nCopies(dungeonIds.size(), "?"))
+            + ") AND NOT EXISTS (SELECT 1 FROM dungeon_submissions s WHERE s.dungeon_id = dungeons.id)";
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return jdbcTemplate.update(sql, dungeonIds.toArray());
+            } catch (DataIntegrityViolationException e) {
+                if (attempt == PURGE_ATTEMPTS) {
+                    log.warn("Giving up on purging {} dungeons after {} attempts", dungeonIds.size(), attempt, e);
+                    return 0;
+                }
+            }
+        }
+    }
+
+    private List<Partition> listPartitions() {
+        List<Partition> partitions = new ArrayList<>();
+        jdbcTemplate.query(LIST_SQL, rs -> {
+            Partition partition = parse(rs.getString("relname"), rs.getString("bound"), rs.getBoolean("detach_pending"));
+            if (partition != null) {
+                partitions.add(partition);
+            }
+        });
+        return partitions;
+    }
+
+    /**
+     * Partitions needed so that every instant in [from, until) is covered. Each one spans a
+     * granularity period, cut short where an existing partition begins, so partitions left over
+     * from another granularity or from the pre-partitioning table are filled around, not overlapped.
+     */
+    static List<Partition> missing(List<Partition> existing, LocalDateTime from, LocalDateTime until,
+                                   PartitionGranularity granularity) {
+        List<Partition> missing = new ArrayList<>();
+        LocalDateTime cursor = from;
+        while (cursor.isBefore(until)) {
+            Partition covering = null;
+            LocalDateTime end = granularity.next(cursor);
+            for (Partition partition : existing) {
+                if (partition.contains(cursor)) {
+                    covering = partition;
+                    break;
+                }
+                if (partition.from() != null && partition.from().isAfter(cursor) && partition.from().isBefore(end)) {
+                    end = partition.from();
+                }
+            }
+            if (covering != null) {
+                if (covering.to() == null) {
+                    break;
+                }
+                cursor = covering.to();
+                continue;
+            }
+            missing.add(new Partition(granularity.partitionName(cursor), cursor, end, false));
+            cursor = end;
+        }
+        return missing;
+    }
+
+    // Parses pg_get_expr output such as FOR VALUES FROM ('2024-01-01 00:00:00') TO (MAXVALUE); null for DEFAULT
+    static Partition parse(String name, String bound, boolean detachPending) {
+        Matcher matcher = RANGE_BOUND.matcher(bound);
+        if (!matcher.matches()) {
+            return null;
+        }
+        return new Partition(name, parseBound(matcher.group(1)), parseBound(matcher.group(2)), detachPending);
+    }
+
+    private static LocalDateTime parseBound(String value) {
+        if (value.equals("MINVALUE") || value.equals("MAXVALUE")) {
+            return null;
+        }
+        return LocalDateTime.parse(value.substring(1, value.length() - 1).replace(' ', 'T'));
+    }
+
+    private static String quoted(String identifier) {
+        return '"' + identifier.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * A range partition of dungeon_submissions; a null bound is MINVALUE or MAXVALUE.
+     */
+    record Partition(String name, LocalDateTime from, LocalDateTime to, boolean detachPending) {
+
+        boolean contains(LocalDateTime time) {
+            return (from == null || !time.isBefore(from)) && (to == null || time.isBefore(to));
+        }
+    }
+}
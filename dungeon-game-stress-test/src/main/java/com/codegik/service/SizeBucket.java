@@ -0,0 +1,37 @@
+package com.codegik.service;
+
+/**
+ * Dungeon size classes by cell count, used to tag the calculate timers.
+ */
+public enum SizeBucket {
+
+    TINY("tiny", 100),
+    SMALL("small", 10_000),
+    MEDIUM("medium", 1_000_000),
+    HUGE("huge", Long.MAX_VALUE);
+
+    private final String name;
+    private final long maxCells;
+
+    SizeBucket(String name, long maxCells) {
+        this.name = name;
+        this.maxCells = maxCells;
+    }
+
+    public static SizeBucket of(long cells) {
+        for (SizeBucket bucket : values()) {
+            if (cells <= bucket.maxCells) {
+                return bucket;
+            }
+        }
+        return HUGE;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getMaxCells() {
+        return maxCells;
+    }
+}
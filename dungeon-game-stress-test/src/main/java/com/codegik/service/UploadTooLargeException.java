@@ -0,0 +1,8 @@
+package com.codegik.service;
+
+public class UploadTooLargeException extends RuntimeException {
+
+    public UploadTooLargeException(String message) {
+        super(message);
+    }
+}
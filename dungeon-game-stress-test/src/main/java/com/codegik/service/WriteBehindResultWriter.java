@@ -0,0 +1,257 @@
+package com.codegik.service;
+
+import com.codegik.entity.DungeonResult;
+import com.codegik.repository.DungeonResultInserter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Optional write-behind path for calculate results. Request threads enqueue into a bounded queue
+ * and a single writer thread drains it with JDBC batch inserts, flushing when a batch fills up or
+ * the flush interval passes. When the queue stays full for longer than the offer timeout the
+ * caller falls back to a synchronous save, which throttles producers to the database's pace.
+ * A failed batch is retried with backoff and then written row by row, so one bad row or a short
+ * database outage loses only the rows that still cannot be written; those are counted as failed.
+ */
+@Component
+public class WriteBehindResultWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(WriteBehindResultWriter.class);
+
+    private static final String ROWS_COUNTER = "dungeon.write.behind.rows";
+    private static final int BATCH_ATTEMPTS = 3;
+
+    private final DungeonResultInserter resultInserter;
+    private final DungeonStatistics statistics;
+    private final DatabaseConcurrencyLimiter dbLimiter;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final long offerTimeoutMillis;
+    private final long retryBackoffMillis;
+    private final BlockingQueue<DungeonResult> queue;
+    private final Thread writerThread;
+    // Producers hold the read side while offering, so once flush() has taken the write side and
+    // cleared running, nothing more can land in the queue behind its final drain
+    private final ReadWriteLock acceptLock = new ReentrantReadWriteLock();
+    private volatile boolean running;
+
+    private final LongAdder written = new LongAdder();
+    private final LongAdder synchronousFallbacks = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder batchRetries = new LongAdder();
+
+    public WriteBehindResultWriter(DungeonResultInserter resultInserter,
+                                   DungeonStatistics statistics,
+                                   DatabaseConcurrencyLimiter dbLimiter,
+                                   MeterRegistry registry,
+                                   @Value("${dungeon.persistence.write-behind.enabled:false}") boolean enabled,
+                                   @Value("${dungeon.persistence.write-behind.queue-capacity:10000}") int queueCapacity,
+                                   @Value("${dungeon.persistence.write-behind.batch-size:500}") int batchSize,
+                                   @Value("${dungeon.persistence.write-behind.flush-interval-ms:50}") long flushIntervalMillis,
+                                   @Value("${dungeon.persistence.write-behind.offer-timeout-ms:100}") long offerTimeoutMillis,
+                                   @Value("${dungeon.persistence.write-behind.retry-backoff-ms:100}") long retryBackoffMillis) {
+        this.resultInserter = resultInserter;
+        this.statistics = statistics;
+        this.dbLimiter = dbLimiter;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        this.offerTimeoutMillis = offerTimeoutMillis;
+        this.retryBackoffMillis = retryBackoffMillis;
+        this.queue = new ArrayBlockingQueue<>(enabled ? queueCapacity : 1);
+        this.writerThread = new Thread(this::drainLoop, "dungeon-result-writer");
+        this.writerThread.setDaemon(true);
+        if (enabled) {
+            running = true;
+            writerThread.start();
+            registerMetrics(registry);
+        }
+    }
+
+    private void registerMetrics(MeterRegistry registry) {
+        Gauge.builder("dungeon.write.behind.pending", queue, BlockingQueue::size)
+            .description("Results queued for the write-behind writer")
+            .register(registry);
+        FunctionCounter.builder(ROWS_COUNTER, written, LongAdder::sum)
+            .description("Results persisted or lost by the write-behind path, by outcome")
+            .tag("outcome", "written")
+            .register(registry);
+        FunctionCounter.builder(ROWS_COUNTER, synchronousFallbacks, LongAdder::sum)
+            .description("Results persisted or lost by the write-behind path, by outcome")
+            .tag("outcome", "synchronous")
+            .register(registry);
+        FunctionCounter.builder(ROWS_COUNTER, failed, LongAdder::sum)
+            .description("Results persisted or lost by the write-behind path, by outcome")
+            .tag("outcome", "failed")
+            .register(registry);
+        FunctionCounter.builder("dungeon.write.behind.batch.retries", batchRetries, LongAdder::sum)
+            .description("Batch inserts retried after a failure")
+            .register(registry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queues the result for a batched insert and returns without waiting for the commit, so the
+     * returned entity has no id yet.
+     */
+    public DungeonResult submit(DungeonResult result) {
+        Lock accept = acceptLock.readLock();
+        accept.lock();
+        try {
+            if (running && queue.offer(result, offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                return result;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            accept.unlock();
+        }
+        synchronousFallbacks.increment();
+        DungeonResult saved = dbLimiter.call(() -> resultInserter.insert(result));
+        statistics.record(saved);
+        return saved;
+    }
+
+    public int getPendingCount() {
+        return queue.size();
+    }
+
+    public long getWrittenCount() {
+        return written.sum();
+    }
+
+    public long getSynchronousFallbackCount() {
+        return synchronousFallbacks.sum();
+    }
+
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    public long getBatchRetryCount() {
+        return batchRetries.sum();
+    }
+
+    private void drainLoop() {
+        List<DungeonResult> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                fillBatch(batch);
+            } catch (InterruptedException e) {
+                running = false;
+            }
+            writeBatch(batch);
+        }
+    }
+
+    private void fillBatch(List<DungeonResult> batch) throws InterruptedException {
+        DungeonResult first = queue.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + flushIntervalNanos;
+        while (batch.size() < batchSize) {
+            queue.drainTo(batch, batchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || remaining <= 0) {
+                return;
+            }
+            DungeonResult next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void writeBatch(List<DungeonResult> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        if (insertWithRetries(batch)) {
+            written.add(batch.size());
+            statistics.recordAll(batch);
+        } else {
+            for (DungeonResult result : batch) {
+                insertOne(result);
+            }
+        }
+        batch.clear();
+    }
+
+    // insertAll is one transaction, so a failed attempt wrote nothing and can be repeated as is
+    private boolean insertWithRetries(List<DungeonResult> batch) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                dbLimiter.run(() -> resultInserter.insertAll(batch));
+                return true;
+            } catch (RuntimeException e) {
+                if (attempt == BATCH_ATTEMPTS) {
+                    log.warn("Batch of {} dungeon results failed {} times, writing them one by one",
+                        batch.size(), attempt, e);
+                    return false;
+                }
+                batchRetries.increment();
+            }
+            try {
+                Thread.sleep(retryBackoffMillis << (attempt - 1));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+
+    private void insertOne(DungeonResult result) {
+        try {
+            DungeonResult saved = dbLimiter.call(() -> resultInserter.insert(result));
+            written.increment();
+            statistics.record(saved);
+        } catch (RuntimeException e) {
+            failed.increment();
+            log.error("Failed to write dungeon result for a {}x{} dungeon", result.getRows(), result.getColumns(), e);
+        }
+    }
+
+    @PreDestroy
+    public void flush() throws InterruptedException {
+        Lock accept = acceptLock.writeLock();
+        accept.lock();
+        try {
+            if (!running) {
+                return;
+            }
+            running = false;
+        } finally {
+            accept.unlock();
+        }
+        // The writer notices within one flush interval; it is not interrupted mid-batch.
+        writerThread.join(TimeUnit.SECONDS.toMillis(30));
+
+        List<DungeonResult> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            writeBatch(batch);
+        }
+    }
+}
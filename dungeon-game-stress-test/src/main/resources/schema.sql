@@ -1,14 +1,127 @@
 -- PostgreSQL schema for Dungeon Game results
-CREATE TABLE IF NOT EXISTS dungeon_results (
+-- Each distinct grid is stored once in dungeons; every calculate request adds a small row to
+-- dungeon_submissions. dungeon_results is a view over both with the original column layout.
+CREATE TABLE IF NOT EXISTS dungeons (
     id BIGSERIAL PRIMARY KEY,
-    dungeon_data TEXT NOT NULL,
+    content_hash BYTEA NOT NULL UNIQUE,
+    dungeon_data BYTEA,
     result INTEGER NOT NULL,
     rows INTEGER NOT NULL,
-    columns INTEGER NOT NULL,
-    created_at TIMESTAMP WITHOUT TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP
+    columns INTEGER NOT NULL
 );
 
--- Create indexes for better query performance
-CREATE INDEX IF NOT EXISTS idx_dungeon_results_result ON dungeon_results(result);
-CREATE INDEX IF NOT EXISTS idx_dungeon_results_dimensions ON dungeon_results(rows, columns);
-CREATE INDEX IF NOT EXISTS idx_dungeon_results_created_at ON dungeon_results(created_at DESC);
+-- dungeon_submissions is range-partitioned on created_at; ResultPartitionManager creates the daily or
+-- hourly partitions and drops expired ones. A table created before partitioning is renamed here and
+-- attached further down as a single partition. The view is dropped first because it would follow the
+-- rename, and the index and sequence names are freed for the new table. DO bodies are single-quoted
+-- so the init script splitter keeps them whole.
+DO '
+BEGIN
+    IF EXISTS (SELECT 1 FROM pg_class WHERE oid = to_regclass(''dungeon_submissions'') AND relkind = ''r'') THEN
+        DROP VIEW IF EXISTS dungeon_results;
+        ALTER TABLE dungeon_submissions RENAME TO dungeon_submissions_legacy;
+        ALTER INDEX IF EXISTS dungeon_submissions_pkey RENAME TO dungeon_submissions_legacy_pkey;
+        ALTER INDEX IF EXISTS idx_dungeon_submissions_result RENAME TO dungeon_submissions_legacy_result_idx;
+        ALTER INDEX IF EXISTS idx_dungeon_submissions_dimensions RENAME TO dungeon_submissions_legacy_dimensions_idx;
+        ALTER INDEX IF EXISTS idx_dungeon_submissions_created_at RENAME TO dungeon_submissions_legacy_created_at_idx;
+        ALTER SEQUENCE IF EXISTS dungeon_submissions_id_seq RENAME TO dungeon_submissions_legacy_id_seq;
+    END IF;
+END';
+
+-- The primary key has to include the partition key
+CREATE TABLE IF NOT EXISTS dungeon_submissions (
+    id BIGSERIAL,
+    dungeon_id BIGINT NOT NULL REFERENCES dungeons(id),
+    result INTEGER NOT NULL,
+    rows INTEGER NOT NULL,
+    columns INTEGER NOT NULL,
+    created_at TIMESTAMP WITHOUT TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+-- dungeon_data is NULL for dungeons solved out of core from a file; the grid stays in that file
+ALTER TABLE dungeons ALTER COLUMN dungeon_data DROP NOT NULL;
+
+-- Databases created before dungeon_data became BYTEA keep their JSON rows as UTF-8 bytes, which
+-- DungeonStorageCodec still reads.
+DO '
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.columns
+               WHERE table_name = ''dungeon_results'' AND column_name = ''dungeon_data'' AND data_type = ''text'') THEN
+        ALTER TABLE dungeon_results ALTER COLUMN dungeon_data TYPE BYTEA USING convert_to(dungeon_data, ''UTF8'');
+    END IF;
+END';
+
+-- Moves a pre-split dungeon_results table into dungeons/dungeon_submissions, keeping ids so
+-- existing result links and /results cursors stay valid, then drops it to make room for the view.
+-- Rows still holding JSON text are hashed over those bytes here; LegacyDungeonReencoder later
+-- rewrites them in the binary encoding under the hash new submissions of the same grid use.
+DO '
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.tables
+               WHERE table_name = ''dungeon_results'' AND table_type = ''BASE TABLE'') THEN
+        EXECUTE format(''CREATE TABLE dungeon_submissions_legacy PARTITION OF dungeon_submissions FOR VALUES FROM (MINVALUE) TO (%L)'',
+            (SELECT date_trunc(''day'', GREATEST(LOCALTIMESTAMP, MAX(created_at))) + interval ''1 day'' FROM dungeon_results));
+        INSERT INTO dungeons (content_hash, dungeon_data, result, rows, columns)
+            SELECT sha256(dungeon_data), dungeon_data, result, rows, columns FROM dungeon_results
+            ON CONFLICT DO NOTHING;
+        INSERT INTO dungeon_submissions (id, dungeon_id, result, rows, columns, created_at)
+            SELECT r.id, d.id, r.result, r.rows, r.columns, r.created_at
+            FROM dungeon_results r JOIN dungeons d ON d.content_hash = sha256(r.dungeon_data);
+        PERFORM setval(pg_get_serial_sequence(''dungeon_submissions'', ''id''), COALESCE(MAX(id), 0) + 1, false)
+            FROM dungeon_submissions;
+        DROP TABLE dungeon_results;
+    END IF;
+END';
+
+-- Attaches a pre-partitioning dungeon_submissions as one partition running up to the end of today, so
+-- its rows stay readable and are dropped together once the whole range is past the retention. Its
+-- primary key on id alone is replaced first, since a partition has to carry the parent's (id, created_at).
+DO '
+DECLARE
+    upper_bound TIMESTAMP;
+BEGIN
+    IF EXISTS (SELECT 1 FROM pg_class WHERE oid = to_regclass(''dungeon_submissions_legacy'') AND NOT relispartition) THEN
+        ALTER TABLE dungeon_submissions_legacy DROP CONSTRAINT IF EXISTS dungeon_submissions_legacy_pkey;
+        ALTER TABLE dungeon_submissions_legacy ADD CONSTRAINT dungeon_submissions_legacy_pkey PRIMARY KEY (id, created_at);
+        SELECT date_trunc(''day'', GREATEST(LOCALTIMESTAMP, MAX(created_at))) + interval ''1 day''
+            INTO upper_bound FROM dungeon_submissions_legacy;
+        EXECUTE format(''ALTER TABLE dungeon_submissions ATTACH PARTITION dungeon_submissions_legacy FOR VALUES FROM (MINVALUE) TO (%L)'',
+            upper_bound);
+        PERFORM setval(pg_get_serial_sequence(''dungeon_submissions'', ''id''), COALESCE(MAX(id), 0) + 1, false)
+            FROM dungeon_submissions;
+    END IF;
+END';
+
+-- LEFT JOIN on the dungeons primary key lets the planner drop the join for queries that do not read dungeon_data
+CREATE OR REPLACE VIEW dungeon_results AS
+    SELECT s.id, d.dungeon_data, s.result, s.rows, s.columns, s.created_at
+    FROM dungeon_submissions s LEFT JOIN dungeons d ON d.id = s.dungeon_id;
+
+-- Create indexes for better query performance. On the partitioned table each partition gets its own
+-- index, and matching indexes already on an attached partition are reused.
+CREATE INDEX IF NOT EXISTS idx_dungeon_submissions_result ON dungeon_submissions(result);
+CREATE INDEX IF NOT EXISTS idx_dungeon_submissions_dimensions ON dungeon_submissions(rows, columns);
+CREATE INDEX IF NOT EXISTS idx_dungeon_submissions_created_at ON dungeon_submissions(created_at DESC);
+-- Lets the retention purge find dungeons that no submission points at any more
+CREATE INDEX IF NOT EXISTS idx_dungeon_submissions_dungeon_id ON dungeon_submissions(dungeon_id);
+
+-- Checkpoints keyed by cell-count bucket cannot be split by shape. Dropping them makes the next
+-- startup rebuild the retained windows from dungeon_results.
+DO '
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.columns
+               WHERE table_name = ''result_distribution_checkpoints'' AND column_name = ''size_bucket'') THEN
+        DROP TABLE result_distribution_checkpoints;
+    END IF;
+END';
+
+-- Periodic snapshots of the in-memory result histograms (HdrHistogram compressed encoding). Each
+-- holds the window's results created before its cutoff; startup replays rows from the latest cutoff.
+CREATE TABLE IF NOT EXISTS result_distribution_checkpoints (
+    dimension_bucket VARCHAR(32) NOT NULL,
+    window_start TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    histogram BYTEA NOT NULL,
+    cutoff TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    PRIMARY KEY (dimension_bucket, window_start)
+);
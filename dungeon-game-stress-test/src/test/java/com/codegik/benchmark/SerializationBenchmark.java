@@ -0,0 +1,94 @@
+package com.codegik.benchmark;
+
+import com.codegik.dto.DungeonRequest;
+import com.codegik.dto.DungeonResponse;
+import com.codegik.entity.DungeonResult;
+import com.codegik.entity.DungeonStorageCodec;
+import com.codegik.game.DungeonGrid;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson work done around a calculate request: reading the DungeonRequest body, writing the
+ * DungeonResponse, and writing a /results page with dungeonData, all through an ObjectMapper
+ * configured like the one Spring Boot injects into DungeonGameService.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class SerializationBenchmark {
+
+    private static final int RESULTS_PAGE_SIZE = 10;
+
+    @Param({"3x3", "100x100", "1000x1000"})
+    private String shape;
+
+    private ObjectMapper objectMapper;
+    private ObjectReader requestReader;
+    private byte[] requestBody;
+    private DungeonResponse response;
+    private List<DungeonResult> resultsPage;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        objectMapper = JsonMapper.builder()
+            .findAndAddModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+        requestReader = objectMapper.readerFor(DungeonRequest.class);
+
+        String[] dimensions = shape.split("x");
+        DungeonGrid dungeon = SolverBenchmark.randomDungeon(
+            Integer.parseInt(dimensions[0]), Integer.parseInt(dimensions[1]), 7);
+        requestBody = objectMapper.writeValueAsBytes(new DungeonRequest(dungeon));
+        response = new DungeonResponse(42, "Success");
+
+        byte[] encoded = DungeonStorageCodec.encode(dungeon);
+        resultsPage = new ArrayList<>(RESULTS_PAGE_SIZE);
+        for (long id = 0; id < RESULTS_PAGE_SIZE; id++) {
+            DungeonResult result = new DungeonResult(encoded, 42, dungeon.getRows(), dungeon.getColumns());
+            result.setId(id);
+            resultsPage.add(result);
+        }
+    }
+
+    @Benchmark
+    public DungeonRequest readRequest() throws Exception {
+        return requestReader.readValue(requestBody);
+    }
+
+    @Benchmark
+    public String writeResponse() throws Exception {
+        return objectMapper.writeValueAsString(response);
+    }
+
+    // Each result decodes its grid again, as a freshly loaded page would
+    @Benchmark
+    public String writeResultsPage() throws Exception {
+        for (DungeonResult result : resultsPage) {
+            result.setEncodedDungeon(result.getEncodedDungeon());
+        }
+        return objectMapper.writeValueAsString(resultsPage);
+    }
+}
@@ -0,0 +1,81 @@
+package com.codegik.benchmark;
+
+import com.codegik.game.DungeonGame;
+import com.codegik.game.DungeonGrid;
+import com.codegik.game.DungeonSolver;
+import com.codegik.game.SolverMode;
+import com.codegik.game.WavefrontSolver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DP cost per solver and grid shape, without HTTP, Jackson or JDBC in the way.
+ * WAVEFRONT runs the tiled parallel solver on every shape, ignoring the parallel threshold.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class SolverBenchmark {
+
+    @Param({"2x2", "512x512", "16x65536", "65536x16", "1024x16384", "16384x1024", "4096x4096"})
+    private String shape;
+
+    @Param({"FULL_TABLE", "ROLLING_ROW", "VECTORIZED", "WAVEFRONT"})
+    private String solver;
+
+    private DungeonGrid dungeon;
+    private DungeonSolver dungeonSolver;
+    private ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String[] dimensions = shape.split("x");
+        dungeon = randomDungeon(Integer.parseInt(dimensions[0]), Integer.parseInt(dimensions[1]), 42);
+
+        if (solver.equals("WAVEFRONT")) {
+            pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+            dungeonSolver = new WavefrontSolver(pool, WavefrontSolver.DEFAULT_TILE_SIZE);
+        } else {
+            dungeonSolver = new DungeonGame(SolverMode.valueOf(solver));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    @Benchmark
+    public int calculateMinimumHP() {
+        return dungeonSolver.calculateMinimumHP(dungeon);
+    }
+
+    static DungeonGrid randomDungeon(int rows, int columns, long seed) {
+        Random random = new Random(seed);
+        int[] cells = new int[Math.multiplyExact(rows, columns)];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = random.nextInt(201) - 100;
+        }
+        return new DungeonGrid(rows, columns, cells);
+    }
+}
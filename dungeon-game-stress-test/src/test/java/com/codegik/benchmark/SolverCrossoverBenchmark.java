@@ -0,0 +1,70 @@
+package com.codegik.benchmark;
+
+import com.codegik.game.DungeonGame;
+import com.codegik.game.DungeonGrid;
+import com.codegik.game.DungeonSolver;
+import com.codegik.game.SolverMode;
+import com.codegik.game.WavefrontSolver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sequential rolling-row solver against the wavefront solver on growing square grids, to pick a
+ * value for dungeon.solver.parallel-threshold: the first side where WAVEFRONT is faster.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SolverCrossoverBenchmark {
+
+    @Param({"64", "128", "256", "512", "1024", "2048", "4096"})
+    private int side;
+
+    @Param({"ROLLING_ROW", "WAVEFRONT"})
+    private String solver;
+
+    private DungeonGrid dungeon;
+    private DungeonSolver dungeonSolver;
+    private ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dungeon = SolverBenchmark.randomDungeon(side, side, 42);
+
+        if (solver.equals("WAVEFRONT")) {
+            pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+            dungeonSolver = new WavefrontSolver(pool, WavefrontSolver.DEFAULT_TILE_SIZE);
+        } else {
+            dungeonSolver = new DungeonGame(SolverMode.valueOf(solver));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    @Benchmark
+    public int calculateMinimumHP() {
+        return dungeonSolver.calculateMinimumHP(dungeon);
+    }
+}
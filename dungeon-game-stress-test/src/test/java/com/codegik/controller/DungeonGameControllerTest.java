@@ -1,25 +1,33 @@
 package com.codegik.controller;
 
+import com.codegik.dto.DungeonBinaryFormat;
 import com.codegik.dto.DungeonRequest;
+import com.codegik.dto.DungeonResponse;
+import com.codegik.service.DungeonGameService;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.server.LocalServerPort;
 
+import java.io.OutputStream;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.util.Arrays;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+// Metrics export, and with it /actuator/prometheus, is off in tests unless asked for
+@AutoConfigureObservability
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 class DungeonGameControllerTest {
 
@@ -32,6 +40,9 @@ class DungeonGameControllerTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private DungeonGameService dungeonGameService;
+
     @BeforeEach
     void setUp() {
         httpClient = HttpClient.newBuilder().build();
@@ -92,6 +103,27 @@ class DungeonGameControllerTest {
         assertEquals("Success", jsonResponse.get("message").asText());
     }
 
+    @Test
+    @DisplayName("Calculate with includePath returns the route as a bitstring")
+    void testCalculateWithPath() throws Exception {
+        int[][] dungeon = {{-2, -3, 3}, {-5, -10, 1}, {10, 30, -5}};
+        DungeonRequest dungeonRequest = new DungeonRequest(dungeon);
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + "/api/dungeon/calculate?includePath=true"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(dungeonRequest)))
+                .build();
+
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        JsonNode jsonResponse = objectMapper.readTree(response.body());
+        assertEquals(7, jsonResponse.get("result").asInt());
+        assertEquals("MA==", jsonResponse.get("path").asText());
+        assertEquals(4, jsonResponse.get("pathLength").asInt());
+    }
+
     @Test
     @DisplayName("Calculate single cell dungeon")
     void testCalculateSingleCell() throws Exception {
@@ -225,5 +257,473 @@ class DungeonGameControllerTest {
 
         assertEquals(400, response.statusCode());
     }
-}
 
+    @Test
+    @DisplayName("Should reject dungeon with rows of different lengths")
+    void testRaggedRows() throws Exception {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + "/api/dungeon/calculate"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"dungeon\": [[-3, 5], [1]]}"))
+                .build();
+
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(400, response.statusCode());
+    }
+
+    @Test
+    @DisplayName("Should reject dungeon with an empty row")
+    void testEmptyRow() throws Exception {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + "/api/dungeon/calculate"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"dungeon\": [[]]}"))
+                .build();
+
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(400, response.statusCode());
+    }
+
+    @Test
+    @DisplayName("Calculate dungeon posted in the binary wire format")
+    void testCalculateBinaryFormat() throws Exception {
+        int[][] dungeon = {{-3, 5, -2}, {-1, -2, -4}, {2, -3, -1}};
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + "/api/dungeon/calculate"))
+                .header("Content-Type", DungeonBinaryFormat.MEDIA_TYPE_VALUE)
+                .header("Accept", DungeonBinaryFormat.MEDIA_TYPE_VALUE)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(DungeonBinaryFormat.writeGrid(dungeon)))
+                .build();
+
+        HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+
+        assertEquals(200, response.statusCode());
+        DungeonResponse dungeonResponse = DungeonBinaryFormat.readResponse(response.body());
+        assertEquals(5, dungeonResponse.getResult());
+        assertEquals("Success", dungeonResponse.getMessage());
+    }
+
+    @Test
+    @DisplayName("Out-of-core solve stores the result without dungeon data")
+    void testSolveOffline() throws Exception {
+        int[][] dungeon = {{-2, -3, 3}, {-5, -10, 1}, {10, 30, -5}};
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + "/api/dungeon/admin/solve"))
+                .header("Content-Type", DungeonBinaryFormat.MEDIA_TYPE_VALUE)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(DungeonBinaryFormat.writeGrid(dungeon)))
+                .build();
+
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        JsonNode saved = objectMapper.readTree(response.body());
+        assertEquals(7, saved.get("result").asInt());
+        assertEquals(3, saved.get("rows").asInt());
+
+        HttpRequest fetch = HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + "/api/dungeon/results/" + saved.get("id").asLong()))
+                .GET()
+                .build();
+        JsonNode stored = objectMapper.readTree(httpClient.send(fetch, HttpResponse.BodyHandlers.ofString()).body());
+        assertEquals(7, stored.get("result").asInt());
+        assertFalse(stored.has("dungeonData"));
+    }
+
+    @Test
+    @DisplayName("Should refuse an offline upload over the size limit")
+    void testSolveOfflineTooLarge() throws Exception {
+        int[][] dungeon = new int[40][40];
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + "/api/dungeon/admin/solve"))
+                .header("Content-Type", DungeonBinaryFormat.MEDIA_TYPE_VALUE)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(DungeonBinaryFormat.writeGrid(dungeon)))
+                .build();
+
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(413, response.statusCode());
+    }
+
+    @Test
+    @DisplayName("Should reject truncated binary dungeon")
+    void testTruncatedBinaryFormat() throws Exception {
+        byte[] body = DungeonBinaryFormat.writeGrid(new int[][]{{-3, 5}, {1, -4}});
+        byte[] truncated = Arrays.copyOf(body, body.length - 4);
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + "/api/dungeon/calculate"))
+                .header("Content-Type", DungeonBinaryFormat.MEDIA_TYPE_VALUE)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(truncated))
+                .build();
+
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(400, response.statusCode());
+    }
+
+    @Test
+    @DisplayName("Page through results with the keyset cursor")
+    void testResultsKeysetPagination() throws Exception {
+        for (int[][] dungeon : new int[][][]{{{-1}}, {{-2}}, {{-3}}}) {
+            HttpRequest saveRequest = HttpRequest.newBuilder()
+                    .uri(URI.create(baseUrl + "/api/dungeon/calculate"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(new DungeonRequest(dungeon))))
+                    .build();
+            httpClient.send(saveRequest, HttpResponse.BodyHandlers.ofString());
+        }
+
+        HttpRequest firstPageRequest = HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + "/api/dungeon/results?limit=2"))
+                .GET()
+                .build();
+        HttpResponse<String> firstPage = httpClient.send(firstPageRequest, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, firstPage.statusCode());
+        JsonNode firstResults = objectMapper.readTree(firstPage.body());
+        assertEquals(2, firstResults.size());
+        assertFalse(firstResults.get(0).has("dungeonData"));
+        String cursor = firstPage.headers().firstValue(DungeonGameController.NEXT_CURSOR_HEADER).orElseThrow();
+
+        HttpRequest secondPageRequest = HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + "/api/dungeon/results?limit=2&includeData=true&cursor=" + cursor))
+                .GET()
+                .build();
+        HttpResponse<String> secondPage = httpClient.send(secondPageRequest, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, secondPage.statusCode());
+        JsonNode secondResults = objectMapper.readTree(secondPage.body());
+        assertFalse(secondResults.isEmpty());
+        assertTrue(secondResults.get(0).get("id").asLong() < firstResults.get(1).get("id").asLong());
+        assertTrue(secondResults.get(0).has("dungeonData"));
+    }
+
+    @Test
+    @DisplayName("Should reject an invalid results cursor")
+    void testInvalidResultsCursor() throws Exception {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + "/api/dungeon/results?cursor=not-a-cursor"))
+                .GET()
+                .build();
+
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(400, response.statusCode());
+    }
+
+    @Test
+    @DisplayName("Stream results as newline delimited JSON")
+    void testStreamResults() throws Exception {
+        HttpRequest saveRequest = HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + "/api/dungeon/calculate"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(new DungeonRequest(new int[][]{{-4}}))))
+                .build();
+        httpClient.send(saveRequest, HttpResponse.BodyHandlers.ofString());
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + "/api/dungeon/results/stream"))
+                .GET()
+                .build();
+
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        String[] lines = response.body().strip().split("\n");
+        assertTrue(lines.length >= 1);
+        for (String line : lines) {
+            assertNotNull(objectMapper.readTree(line).get("result"));
+        }
+    }
+
+    @Test
+    @DisplayName("Streams beyond the concurrent stream cap get 503")
+    void testStreamLimit() throws Exception {
+        // Takes both default slots the way two open streams would hold them
+        dungeonGameService.reserveResultStream();
+        dungeonGameService.reserveResultStream();
+        try {
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(URI.create(baseUrl + "/api/dungeon/results/stream"))
+                    .GET()
+                    .build();
+
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+
+            assertEquals(503, response.statusCode());
+        } finally {
+            dungeonGameService.streamResults(false, OutputStream.nullOutputStream());
+            dungeonGameService.streamResults(false, OutputStream.nullOutputStream());
+        }
+    }
+
+    @Test
+    @DisplayName("Dimension stats follow saved results")
+    void testDimensionStats() throws Exception {
+        int[][][] dungeons = {{{-3, 5, -2, 1, 0, 7, 1}}, {{-9, 5, -2, 1, 0, 7, 1}}};
+        for (int[][] dungeon : dungeons) {
+            HttpRequest saveRequest = HttpRequest.newBuilder()
+                    .uri(URI.create(baseUrl + "/api/dungeon/calculate"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(new DungeonRequest(dungeon))))
+                    .build();
+            httpClient.send(saveRequest, HttpResponse.BodyHandlers.ofString());
+        }
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + "/api/dungeon/stats/dimensions/1/7"))
+                .GET()
+                .build();
+
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        JsonNode stats = objectMapper.readTree(response.body());
+        assertEquals(2, stats.get("count").asLong());
+        assertEquals(4, stats.get("min").asInt());
+        assertEquals(10, stats.get("max").asInt());
+        assertEquals(7.0, stats.get("average").asDouble());
+    }
+
+    @Test
+    @DisplayName("Result distribution reports percentiles per dimension bucket")
+    void testResultDistribution() throws Exception {
+        HttpRequest saveRequest = HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + "/api/dungeon/calculate"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(
+                    new DungeonRequest(new int[][]{{-2, -3, 3}, {-5, -10, 1}, {10, 30, -5}}))))
+                .build();
+        httpClient.send(saveRequest, HttpResponse.BodyHandlers.ofString());
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + "/api/dungeon/stats/distribution?rows=3&columns=3&bins=5"))
+                .GET()
+                .build();
+
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        JsonNode stats = objectMapper.readTree(response.body());
+        assertEquals(1, stats.size());
+        assertEquals("1-10x1-10", stats.get(0).get("dimensionBucket").asText());
+        assertTrue(stats.get(0).get("count").asLong() >= 1);
+        assertTrue(stats.get(0).get("max").asLong() >= 7);
+        assertTrue(stats.get(0).get("histogram").size() <= 5);
+
+        HttpRequest invalid = HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + "/api/dungeon/stats/distribution?bucket=enormous"))
+                .GET()
+                .build();
+        assertEquals(400, httpClient.send(invalid, HttpResponse.BodyHandlers.ofString()).statusCode());
+    }
+
+    @Test
+    @DisplayName("Batch calculate keeps order and reports invalid dungeons per item")
+    void testCalculateBatch() throws Exception {
+        String body = """
+            {"dungeons": [
+                [[-3, 5], [1, -4]],
+                [[-3, 5], [1]],
+                [[-3, 5, -2], [-1, -2, -4], [2, -3, -1]]
+            ]}
+            """;
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + "/api/dungeon/calculate/batch"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        JsonNode jsonResponse = objectMapper.readTree(response.body());
+        JsonNode results = jsonResponse.get("results");
+        assertEquals(3, results.size());
+        assertEquals(4, results.get(0).get("result").asInt());
+        assertEquals("Success", results.get(0).get("message").asText());
+        assertTrue(results.get(1).get("message").asText().startsWith("Error"));
+        assertEquals(5, results.get(2).get("result").asInt());
+        assertEquals(2, jsonResponse.get("succeeded").asInt());
+        assertEquals(1, jsonResponse.get("failed").asInt());
+    }
+
+    @Test
+    @DisplayName("Batch over the size limit is rejected with 413")
+    void testCalculateBatchTooLarge() throws Exception {
+        String[] dungeons = new String[1001];
+        Arrays.fill(dungeons, "[[1]]");
+        String body = "{\"dungeons\": [" + String.join(",", dungeons) + "]}";
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + "/api/dungeon/calculate/batch"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(413, response.statusCode());
+    }
+
+    @Test
+    @DisplayName("Submitted job can be polled until it finishes with a result")
+    void testSubmitAndPollJob() throws Exception {
+        int[][] dungeon = {{-2, -3, 3}, {-5, -10, 1}, {10, 30, -5}};
+        String requestBody = objectMapper.writeValueAsString(new DungeonRequest(dungeon));
+
+        HttpRequest submit = HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + "/api/dungeon/jobs"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(requestBody))
+                .build();
+
+        HttpResponse<String> submitted = httpClient.send(submit, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(202, submitted.statusCode());
+        String jobId = objectMapper.readTree(submitted.body()).get("id").asText();
+        assertEquals("/api/dungeon/jobs/" + jobId, submitted.headers().firstValue("Location").orElse(null));
+
+        HttpRequest poll = HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + "/api/dungeon/jobs/" + jobId))
+                .GET()
+                .build();
+
+        JsonNode job = null;
+        for (int attempt = 0; attempt < 50; attempt++) {
+            HttpResponse<String> response = httpClient.send(poll, HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, response.statusCode());
+            job = objectMapper.readTree(response.body());
+            if ("SUCCEEDED".equals(job.get("status").asText())) {
+                break;
+            }
+            Thread.sleep(100);
+        }
+
+        assertEquals("SUCCEEDED", job.get("status").asText());
+        assertEquals(7, job.get("result").asInt());
+        assertEquals(3, job.get("rowsDone").asInt());
+        assertEquals(1.0, job.get("progress").asDouble());
+    }
+
+    @Test
+    @DisplayName("Session patches re-solve the dungeon and deleted sessions are gone")
+    void testEditingSession() throws Exception {
+        int[][] dungeon = {{-2, -3, 3}, {-5, -10, 1}, {10, 30, -5}};
+
+        HttpRequest create = HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + "/api/dungeon/sessions"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(new DungeonRequest(dungeon))))
+                .build();
+
+        HttpResponse<String> created = httpClient.send(create, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(201, created.statusCode());
+        JsonNode session = objectMapper.readTree(created.body());
+        assertEquals(7, session.get("result").asInt());
+        URI sessionUri = URI.create(baseUrl + "/api/dungeon/sessions/" + session.get("id").asText());
+
+        HttpRequest patch = HttpRequest.newBuilder()
+                .uri(sessionUri)
+                .header("Content-Type", "application/json")
+                .method("PATCH", HttpRequest.BodyPublishers.ofString(
+                    "{\"cells\": [{\"row\": 0, \"column\": 1, \"value\": 3}]}"))
+                .build();
+
+        HttpResponse<String> patched = httpClient.send(patch, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, patched.statusCode());
+        // Now -2 -> 3 -> 3 -> 1 -> -5 leaves 1 HP at the end when starting with 3
+        assertEquals(3, objectMapper.readTree(patched.body()).get("result").asInt());
+
+        HttpRequest outside = HttpRequest.newBuilder()
+                .uri(sessionUri)
+                .header("Content-Type", "application/json")
+                .method("PATCH", HttpRequest.BodyPublishers.ofString(
+                    "{\"cells\": [{\"row\": 3, \"column\": 0, \"value\": 1}]}"))
+                .build();
+        assertEquals(400, httpClient.send(outside, HttpResponse.BodyHandlers.ofString()).statusCode());
+
+        HttpRequest delete = HttpRequest.newBuilder().uri(sessionUri).DELETE().build();
+        assertEquals(204, httpClient.send(delete, HttpResponse.BodyHandlers.ofString()).statusCode());
+
+        HttpRequest get = HttpRequest.newBuilder().uri(sessionUri).GET().build();
+        assertEquals(404, httpClient.send(get, HttpResponse.BodyHandlers.ofString()).statusCode());
+    }
+
+    @Test
+    @DisplayName("Unknown job id returns 404")
+    void testUnknownJob() throws Exception {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + "/api/dungeon/jobs/does-not-exist"))
+                .GET()
+                .build();
+
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(404, response.statusCode());
+    }
+
+    @Test
+    @DisplayName("Repeated dungeon is stored once but listed per submission")
+    void testRepeatedDungeonSubmissions() throws Exception {
+        int[][] dungeon = {{-1, -2, -3, -4, -5, -6, -7, -8, -9}};
+        String requestBody = objectMapper.writeValueAsString(new DungeonRequest(dungeon));
+
+        for (int i = 0; i < 2; i++) {
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(URI.create(baseUrl + "/api/dungeon/calculate"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(requestBody))
+                    .build();
+            assertEquals(200, httpClient.send(request, HttpResponse.BodyHandlers.ofString()).statusCode());
+        }
+
+        HttpRequest listRequest = HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + "/api/dungeon/results/dimensions/1/9"))
+                .GET()
+                .build();
+        HttpResponse<String> response = httpClient.send(listRequest, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        JsonNode results = objectMapper.readTree(response.body());
+        assertEquals(2, results.size());
+        for (JsonNode result : results) {
+            assertEquals(46, result.get("result").asInt());
+            assertEquals(objectMapper.writeValueAsString(dungeon), result.get("dungeonData").asText());
+        }
+        assertTrue(results.get(0).get("id").asLong() != results.get(1).get("id").asLong());
+    }
+
+    @Test
+    @DisplayName("Prometheus endpoint exposes calculate stage timers and pool gauges")
+    void testPrometheusMetrics() throws Exception {
+        int[][] dungeon = {{-2, -3, 3}, {-5, -10, 1}, {10, 30, -5}};
+        HttpRequest calculate = HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + "/api/dungeon/calculate"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(new DungeonRequest(dungeon))))
+                .build();
+        assertEquals(200, httpClient.send(calculate, HttpResponse.BodyHandlers.ofString()).statusCode());
+
+        HttpRequest scrape = HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + "/actuator/prometheus"))
+                .GET()
+                .build();
+        HttpResponse<String> response = httpClient.send(scrape, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        String body = response.body();
+        for (String stage : new String[]{"parse", "encode", "persist"}) {
+            assertTrue(body.contains("dungeon_calculate_stage_seconds_count{size=\"tiny\",stage=\"" + stage + "\"}"),
+                "missing stage " + stage);
+        }
+        assertTrue(body.contains("hikaricp_connections_active"));
+    }
+}
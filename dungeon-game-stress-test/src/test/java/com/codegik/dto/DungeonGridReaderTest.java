@@ -0,0 +1,52 @@
+package com.codegik.dto;
+
+import com.codegik.game.CellBufferPool;
+import com.codegik.game.DungeonGrid;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DungeonGridReaderTest {
+
+    @AfterEach
+    void restoreLimit() {
+        DungeonGridReader.setMaxCells(DungeonGridReader.DEFAULT_MAX_CELLS);
+    }
+
+    @Test
+    @DisplayName("Grids over the cell limit are rejected and the next grid is still read")
+    void testMaxCells() throws Exception {
+        DungeonGridReader.setMaxCells(4);
+        JsonParser parser = new JsonFactory().createParser("[[[1, 2, 3], [4, 5, 6]], [[7, 8], [9, 10]]]");
+        parser.nextToken();
+        parser.nextToken();
+
+        InvalidDungeonException e = assertThrows(InvalidDungeonException.class, () -> DungeonGridReader.read(parser));
+        assertEquals("Dungeon has more than 4 cells", e.getMessage());
+
+        parser.nextToken();
+        DungeonGrid grid = DungeonGridReader.read(parser);
+        assertEquals(2, grid.getRows());
+        assertEquals(2, grid.getColumns());
+        grid.release();
+    }
+
+    @Test
+    @DisplayName("A rejected grid gives its cell buffer back to the pool")
+    void testInvalidReleasesBuffer() throws Exception {
+        JsonParser parser = new JsonFactory().createParser("[[1, 2], [3]]");
+        parser.nextToken();
+        // Leaves a buffer of the reader's starting size in the pool for it to take
+        CellBufferPool.SHARED.release(CellBufferPool.SHARED.acquire(64));
+        long pooled = CellBufferPool.SHARED.getPooledCells();
+
+        assertThrows(InvalidDungeonException.class, () -> DungeonGridReader.read(parser));
+
+        assertEquals(pooled, CellBufferPool.SHARED.getPooledCells());
+    }
+}
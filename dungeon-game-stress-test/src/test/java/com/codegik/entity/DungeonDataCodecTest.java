@@ -0,0 +1,31 @@
+package com.codegik.entity;
+
+import com.codegik.game.DungeonGrid;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DungeonDataCodecTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    @DisplayName("Encoded dungeon data matches Jackson output")
+    void testEncodeMatchesJackson() throws Exception {
+        int[][] dungeon = {
+            {-3, 5, -2},
+            {-1, -2, Integer.MIN_VALUE},
+            {2, Integer.MAX_VALUE, 0}
+        };
+
+        assertEquals(objectMapper.writeValueAsString(dungeon), DungeonDataCodec.encode(DungeonGrid.of(dungeon)));
+    }
+
+    @Test
+    @DisplayName("Encoded single cell dungeon")
+    void testEncodeSingleCell() {
+        assertEquals("[[-5]]", DungeonDataCodec.encode(DungeonGrid.of(new int[][]{{-5}})));
+    }
+}
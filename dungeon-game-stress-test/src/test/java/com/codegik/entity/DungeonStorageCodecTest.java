@@ -0,0 +1,70 @@
+package com.codegik.entity;
+
+import com.codegik.game.DungeonGrid;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DungeonStorageCodecTest {
+
+    @Test
+    @DisplayName("Small dungeons encode to one byte per cell plus header")
+    void testSmallDungeonIsCompact() {
+        byte[] encoded = DungeonStorageCodec.encode(DungeonGrid.of(new int[][]{{-3, 5}, {1, -4}}));
+
+        assertEquals(7, encoded.length);
+        assertArrayEquals(new int[][]{{-3, 5}, {1, -4}}, DungeonStorageCodec.decode(encoded).toArray());
+    }
+
+    @Test
+    @DisplayName("Extreme values survive a round trip")
+    void testExtremeValues() {
+        int[][] dungeon = {{Integer.MIN_VALUE, -1, 0}, {1, Integer.MAX_VALUE, -64}};
+
+        assertArrayEquals(dungeon, DungeonStorageCodec.decode(DungeonStorageCodec.encode(DungeonGrid.of(dungeon))).toArray());
+    }
+
+    @Test
+    @DisplayName("Large dungeons are deflated and still round trip")
+    void testLargeDungeonIsDeflated() {
+        Random random = new Random(42);
+        int[][] dungeon = new int[100][100];
+        for (int[] row : dungeon) {
+            for (int j = 0; j < row.length; j++) {
+                row[j] = random.nextInt(21) - 10;
+            }
+        }
+
+        byte[] encoded = DungeonStorageCodec.encode(DungeonGrid.of(dungeon));
+
+        assertEquals(DungeonStorageCodec.FORMAT_DEFLATE, encoded[0]);
+        assertTrue(encoded.length < 100 * 100);
+        assertArrayEquals(dungeon, DungeonStorageCodec.decode(encoded).toArray());
+    }
+
+    @Test
+    @DisplayName("Rows stored as JSON text before the BYTEA migration still decode")
+    void testLegacyJson() {
+        byte[] legacy = "[[-2,-3,3],[-5,-10,1],[10,30,-5]]".getBytes(StandardCharsets.UTF_8);
+
+        assertArrayEquals(new int[][]{{-2, -3, 3}, {-5, -10, 1}, {10, 30, -5}},
+            DungeonStorageCodec.decode(legacy).toArray());
+    }
+
+    @Test
+    @DisplayName("Truncated data is rejected")
+    void testTruncatedData() {
+        byte[] encoded = DungeonStorageCodec.encode(DungeonGrid.of(new int[][]{{1, 2}, {3, 4}}));
+        byte[] truncated = Arrays.copyOf(encoded, encoded.length - 1);
+
+        assertThrows(IllegalArgumentException.class, () -> DungeonStorageCodec.decode(truncated));
+    }
+}
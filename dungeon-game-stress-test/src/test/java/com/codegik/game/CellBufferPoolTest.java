@@ -0,0 +1,63 @@
+package com.codegik.game;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CellBufferPoolTest {
+
+    @Test
+    @DisplayName("Size classes cover every capacity within 25%")
+    void testSizeClasses() {
+        for (int capacity = 1; capacity < 1_000_000; capacity++) {
+            int sizeClass = CellBufferPool.classOf(capacity);
+            int classCapacity = CellBufferPool.capacityOf(sizeClass);
+            assertTrue(classCapacity >= capacity);
+            assertTrue(capacity <= 64 || classCapacity <= capacity * 1.25 + 1);
+            assertEquals(sizeClass, CellBufferPool.classOf(classCapacity));
+        }
+    }
+
+    @Test
+    @DisplayName("Released buffers are reused for the same size class")
+    void testReuse() {
+        CellBufferPool pool = new CellBufferPool(1000);
+        int[] buffer = pool.acquire(100);
+        pool.release(buffer);
+
+        assertSame(buffer, pool.acquire(110));
+        assertEquals(1, pool.getHits());
+        assertEquals(0, pool.getPooledCells());
+    }
+
+    @Test
+    @DisplayName("Pool keeps no more than its bound and ignores foreign arrays")
+    void testBound() {
+        CellBufferPool pool = new CellBufferPool(1000);
+        int[] large = pool.acquire(2000);
+        pool.release(large);
+        pool.release(new int[100]);
+
+        assertEquals(0, pool.getPooledCells());
+        assertNotSame(large, pool.acquire(2000));
+    }
+
+    @Test
+    @DisplayName("Pooled grid gives its array back once on release")
+    void testGridRelease() {
+        CellBufferPool pool = new CellBufferPool(1000);
+        int[] cells = pool.acquire(9);
+        DungeonGrid grid = DungeonGrid.pooled(3, 3, cells, pool);
+
+        DungeonGrid copy = grid.copy();
+        grid.release();
+        grid.release();
+
+        assertEquals(cells.length, pool.getPooledCells());
+        assertEquals(9, copy.getCells().length);
+    }
+}
@@ -7,6 +7,7 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 
+import java.util.Random;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -211,4 +212,58 @@ class DungeonGameTest {
         int result = dungeonGame.calculateMinimumHP(dungeon);
         assertTrue(result > 0);
     }
+
+    @ParameterizedTest
+    @MethodSource("provideGridShapes")
+    @DisplayName("Rolling row solver matches full table solver")
+    void testRollingRowMatchesFullTable(int rows, int columns) {
+        DungeonGame fullTable = new DungeonGame(SolverMode.FULL_TABLE);
+        DungeonGame rollingRow = new DungeonGame(SolverMode.ROLLING_ROW);
+        Random random = new Random(rows * 31L + columns);
+
+        for (int k = 0; k < 20; k++) {
+            int[][] dungeon = randomDungeon(random, rows, columns);
+            assertEquals(fullTable.calculateMinimumHP(dungeon), rollingRow.calculateMinimumHP(dungeon));
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("provideGridShapes")
+    @DisplayName("Vectorized solver matches full table solver")
+    void testVectorizedMatchesFullTable(int rows, int columns) {
+        DungeonGame fullTable = new DungeonGame(SolverMode.FULL_TABLE);
+        DungeonGame vectorized = new DungeonGame(SolverMode.VECTORIZED);
+        // Surefire adds jdk.incubator.vector; without it this would silently compare ROLLING_ROW instead
+        assertTrue(vectorized.isVectorized(), "VECTORIZED fell back to ROLLING_ROW; is jdk.incubator.vector on the test JVM?");
+        Random random = new Random(rows * 17L + columns);
+
+        for (int k = 0; k < 20; k++) {
+            int[][] dungeon = randomDungeon(random, rows, columns);
+            assertEquals(fullTable.calculateMinimumHP(dungeon), vectorized.calculateMinimumHP(dungeon));
+        }
+    }
+
+    static Stream<Arguments> provideGridShapes() {
+        return Stream.of(
+            Arguments.of(1, 1),
+            Arguments.of(1, 17),
+            Arguments.of(17, 1),
+            Arguments.of(8, 8),
+            Arguments.of(5, 40),
+            Arguments.of(40, 5),
+            // Wider than one rolling-row column block, with a partial block at the left
+            Arguments.of(3, 600),
+            Arguments.of(300, 512)
+        );
+    }
+
+    static int[][] randomDungeon(Random random, int rows, int columns) {
+        int[][] dungeon = new int[rows][columns];
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                dungeon[i][j] = random.nextInt(201) - 100;
+            }
+        }
+        return dungeon;
+    }
 }
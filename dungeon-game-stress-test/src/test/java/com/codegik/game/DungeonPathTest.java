@@ -0,0 +1,78 @@
+package com.codegik.game;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DungeonPathTest {
+
+    @Test
+    @DisplayName("Path for the classic example goes right, right, down, down")
+    void testClassicExample() {
+        int[][] dungeon = {
+            {-2, -3, 3},
+            {-5, -10, 1},
+            {10, 30, -5}
+        };
+        DungeonPath path = DungeonPath.find(DungeonGrid.of(dungeon));
+
+        assertEquals(7, path.getMinimumHP());
+        assertEquals(4, path.length());
+        assertEquals("MA==", path.encode());
+    }
+
+    @Test
+    @DisplayName("Single cell has an empty path")
+    void testSingleCell() {
+        DungeonPath path = DungeonPath.find(DungeonGrid.of(new int[][]{{-5}}));
+
+        assertEquals(6, path.getMinimumHP());
+        assertEquals(0, path.length());
+        assertEquals("", path.encode());
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+        "1, 30",
+        "30, 1",
+        "7, 7",
+        "50, 9",
+        "9, 50",
+        "101, 37"
+    })
+    @DisplayName("Walking the path needs exactly the minimum HP")
+    void testPathNeedsMinimumHP(int rows, int columns) {
+        DungeonGame fullTable = new DungeonGame(SolverMode.FULL_TABLE);
+        Random random = new Random(rows * 31L + columns);
+
+        for (int k = 0; k < 10; k++) {
+            int[][] dungeon = DungeonGameTest.randomDungeon(random, rows, columns);
+            DungeonPath path = DungeonPath.find(DungeonGrid.of(dungeon));
+            assertEquals(rows + columns - 2, path.length());
+
+            int i = 0;
+            int j = 0;
+            long health = dungeon[0][0];
+            long lowest = health;
+            for (int move = 0; move < path.length(); move++) {
+                if (path.isDown(move)) {
+                    i++;
+                } else {
+                    j++;
+                }
+                health += dungeon[i][j];
+                lowest = Math.min(lowest, health);
+            }
+
+            assertEquals(rows - 1, i);
+            assertEquals(columns - 1, j);
+            assertEquals(fullTable.calculateMinimumHP(dungeon), Math.max(1, 1 - lowest));
+            assertEquals(fullTable.calculateMinimumHP(dungeon), path.getMinimumHP());
+        }
+    }
+}
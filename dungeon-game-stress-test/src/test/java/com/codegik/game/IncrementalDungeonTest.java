@@ -0,0 +1,75 @@
+package com.codegik.game;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IncrementalDungeonTest {
+
+    private final DungeonGame fullTable = new DungeonGame(SolverMode.FULL_TABLE);
+
+    @ParameterizedTest
+    @CsvSource({
+        "1, 1",
+        "1, 40",
+        "40, 1",
+        "12, 12",
+        "30, 7",
+        "7, 30"
+    })
+    @DisplayName("Patched dungeon matches a full re-solve after every edit")
+    void testMatchesFullSolve(int rows, int columns) {
+        Random random = new Random(rows * 31L + columns);
+        int[][] dungeon = DungeonGameTest.randomDungeon(random, rows, columns);
+        IncrementalDungeon incremental = new IncrementalDungeon(DungeonGrid.of(dungeon));
+
+        for (int k = 0; k < 50; k++) {
+            int[][] edits = new int[1 + random.nextInt(3)][];
+            for (int e = 0; e < edits.length; e++) {
+                int row = random.nextInt(rows);
+                int column = random.nextInt(columns);
+                int value = random.nextInt(41) - 25;
+                edits[e] = new int[]{row, column, value};
+                dungeon[row][column] = value;
+            }
+            assertEquals(fullTable.calculateMinimumHP(dungeon), incremental.setAll(edits));
+        }
+    }
+
+    @Test
+    @DisplayName("Single-cell edit on a large dungeon re-solves far fewer cells than a full solve")
+    void testSingleEditIsLocal() {
+        Random random = new Random(11);
+        int[][] dungeon = DungeonGameTest.randomDungeon(random, 500, 500);
+        IncrementalDungeon incremental = new IncrementalDungeon(DungeonGrid.of(dungeon));
+
+        long before = incremental.getRecomputedCells();
+        for (int k = 0; k < 100; k++) {
+            int row = random.nextInt(500);
+            int column = random.nextInt(500);
+            dungeon[row][column] = random.nextInt(41) - 25;
+            incremental.set(row, column, dungeon[row][column]);
+        }
+
+        assertEquals(fullTable.calculateMinimumHP(dungeon), incremental.getMinimumHP());
+        assertTrue(incremental.getRecomputedCells() - before < 100L * 500 * 500 / 100);
+    }
+
+    @Test
+    @DisplayName("Edits outside the grid are rejected without applying any")
+    void testRejectsOutsideEdits() {
+        int[][] dungeon = {{-2, -3, 3}, {-5, -10, 1}, {10, 30, -5}};
+        IncrementalDungeon incremental = new IncrementalDungeon(DungeonGrid.of(dungeon));
+
+        assertThrows(IllegalArgumentException.class,
+            () -> incremental.setAll(new int[][]{{0, 1, 3}, {3, 0, 1}}));
+        assertEquals(7, incremental.getMinimumHP());
+    }
+}
@@ -0,0 +1,63 @@
+package com.codegik.game;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MappedDungeonSolverTest {
+
+    @TempDir
+    Path directory;
+
+    @ParameterizedTest
+    @CsvSource({
+        "1, 1",
+        "3, 3",
+        "40, 17",
+        "2, 150000"
+    })
+    @DisplayName("Mapped solver matches the in-heap solver")
+    void testMatchesInHeap(int rows, int columns) throws IOException {
+        int[][] dungeon = DungeonGameTest.randomDungeon(new Random(rows * 31L + columns), rows, columns);
+        Path file = write(dungeon);
+
+        MappedDungeonSolver.Solution solution = MappedDungeonSolver.solve(file, null);
+
+        assertEquals(rows, solution.rows());
+        assertEquals(columns, solution.columns());
+        assertEquals(new DungeonGame().calculateMinimumHP(dungeon), solution.minimumHP());
+    }
+
+    @Test
+    @DisplayName("File whose size does not match its header is rejected")
+    void testRejectsTruncatedFile() throws IOException {
+        Path file = write(new int[][]{{-3, 5}, {1, -4}});
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 1));
+
+        assertThrows(IllegalArgumentException.class, () -> MappedDungeonSolver.solve(file, null));
+    }
+
+    private Path write(int[][] dungeon) throws IOException {
+        DungeonGrid grid = DungeonGrid.of(dungeon);
+        ByteBuffer buffer = ByteBuffer.allocate(8 + grid.size() * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(grid.getRows()).putInt(grid.getColumns());
+        buffer.asIntBuffer().put(grid.getCells(), 0, grid.size());
+        Path file = Files.createTempFile(directory, "dungeon-", ".bin");
+        Files.write(file, buffer.array());
+        return file;
+    }
+}
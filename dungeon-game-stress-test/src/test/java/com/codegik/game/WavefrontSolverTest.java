@@ -0,0 +1,101 @@
+package com.codegik.game;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class WavefrontSolverTest {
+
+    private ForkJoinPool pool;
+    private DungeonGame sequential;
+
+    @BeforeEach
+    void setUp() {
+        pool = new ForkJoinPool(4);
+        sequential = new DungeonGame(SolverMode.FULL_TABLE);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    @DisplayName("Wavefront solver handles the classic example")
+    void testClassicExample() {
+        int[][] dungeon = {
+            {-3, 5, -2},
+            {-1, -2, -4},
+            {2, -3, -1}
+        };
+        assertEquals(5, new WavefrontSolver(pool, 1).calculateMinimumHP(dungeon));
+        assertEquals(5, new WavefrontSolver(pool, 2).calculateMinimumHP(dungeon));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+        "1, 1, 1",
+        "1, 50, 7",
+        "50, 1, 7",
+        "33, 33, 8",
+        "64, 64, 16",
+        "17, 90, 5",
+        "90, 17, 5",
+        "100, 100, 256"
+    })
+    @DisplayName("Wavefront solver matches the sequential solver")
+    void testMatchesSequential(int rows, int columns, int tileSize) {
+        WavefrontSolver wavefront = new WavefrontSolver(pool, tileSize);
+        Random random = new Random(rows * 31L + columns);
+
+        for (int k = 0; k < 10; k++) {
+            int[][] dungeon = DungeonGameTest.randomDungeon(random, rows, columns);
+            assertEquals(sequential.calculateMinimumHP(dungeon), wavefront.calculateMinimumHP(dungeon));
+        }
+    }
+
+    @Test
+    @DisplayName("DungeonGame switches to the wavefront solver above the threshold")
+    void testThresholdDispatch() {
+        CountingWavefrontSolver wavefront = new CountingWavefrontSolver(pool);
+        DungeonGame game = new DungeonGame(SolverMode.ROLLING_ROW, wavefront, 100);
+        Random random = new Random(7);
+
+        int[][] small = DungeonGameTest.randomDungeon(random, 5, 5);
+        int[][] large = DungeonGameTest.randomDungeon(random, 30, 30);
+
+        assertEquals(sequential.calculateMinimumHP(small), game.calculateMinimumHP(small));
+        assertEquals(0, wavefront.calls.get());
+        assertEquals(sequential.calculateMinimumHP(large), game.calculateMinimumHP(large));
+        assertEquals(1, wavefront.calls.get());
+        game.calculateMinimumHP(DungeonGrid.of(large), rows -> { });
+        assertEquals(2, wavefront.calls.get());
+        game.calculateMinimumHP(DungeonGrid.of(small), rows -> { });
+        assertEquals(2, wavefront.calls.get());
+    }
+
+    private static final class CountingWavefrontSolver extends WavefrontSolver {
+        final AtomicInteger calls = new AtomicInteger();
+
+        CountingWavefrontSolver(ForkJoinPool pool) {
+            super(pool, 4);
+        }
+
+        // Both entry points end up here
+        @Override
+        public int calculateMinimumHP(DungeonGrid grid, IntConsumer rowsDone) {
+            calls.incrementAndGet();
+            return super.calculateMinimumHP(grid, rowsDone);
+        }
+    }
+}
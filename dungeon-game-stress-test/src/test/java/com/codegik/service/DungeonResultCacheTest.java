@@ -0,0 +1,56 @@
+package com.codegik.service;
+
+import com.codegik.dto.CacheStats;
+import com.codegik.game.DungeonGrid;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class DungeonResultCacheTest {
+
+    @Test
+    @DisplayName("Cache returns the result for an equal grid")
+    void testHitOnEqualGrid() {
+        DungeonResultCache cache = new DungeonResultCache(1000);
+        cache.put(DungeonGrid.of(new int[][]{{-3, 5}, {1, -4}}), 4);
+
+        assertEquals(4, cache.get(DungeonGrid.of(new int[][]{{-3, 5}, {1, -4}})));
+        assertNull(cache.get(DungeonGrid.of(new int[][]{{-3, 5, 1, -4}})));
+        assertNull(cache.get(DungeonGrid.of(new int[][]{{-3, 5}, {1, -5}})));
+
+        CacheStats stats = cache.getStats();
+        assertEquals(1, stats.getHits());
+        assertEquals(2, stats.getMisses());
+    }
+
+    @Test
+    @DisplayName("Cache evicts least recently used grids once over its weight")
+    void testEvictsByWeight() {
+        DungeonResultCache cache = new DungeonResultCache(2 * (4 + 16));
+        DungeonGrid first = DungeonGrid.of(new int[][]{{1, 2}, {3, 4}});
+        DungeonGrid second = DungeonGrid.of(new int[][]{{5, 6}, {7, 8}});
+        DungeonGrid third = DungeonGrid.of(new int[][]{{9, 10}, {11, 12}});
+
+        cache.put(first, 1);
+        cache.put(second, 2);
+        cache.get(first);
+        cache.put(third, 3);
+
+        assertEquals(1, cache.get(first));
+        assertNull(cache.get(second));
+        assertEquals(3, cache.get(third));
+        assertEquals(1, cache.getStats().getEvictions());
+    }
+
+    @Test
+    @DisplayName("Disabled cache never stores results")
+    void testDisabled() {
+        DungeonResultCache cache = new DungeonResultCache(0);
+        DungeonGrid grid = DungeonGrid.of(new int[][]{{-5}});
+        cache.put(grid, 6);
+
+        assertNull(cache.get(grid));
+    }
+}
@@ -0,0 +1,44 @@
+package com.codegik.service;
+
+import com.codegik.dto.DimensionStats;
+import com.codegik.entity.DungeonResult;
+import com.codegik.repository.DungeonResultInserter;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+class DungeonStatisticsTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DungeonResultInserter inserter;
+
+    @Test
+    @DisplayName("Min and max are recomputed after rows leave with a dropped partition")
+    void testReseedExtremes() {
+        DungeonStatistics statistics = new DungeonStatistics(jdbcTemplate, new ResultDistribution(jdbcTemplate, null, 60, 168, 0));
+        // 7x77 is a shape no other test stores
+        for (int value : new int[]{1, 5, 9}) {
+            statistics.record(inserter.insert(new DungeonResult(("reseed-" + value).getBytes(StandardCharsets.UTF_8), value, 7, 77)));
+        }
+
+        // Stands in for dropping the partition that held the 1 and the 9
+        jdbcTemplate.update("DELETE FROM dungeon_submissions WHERE rows = 7 AND columns = 77 AND result <> 5");
+        statistics.forget(7, 77, 2, 10);
+        statistics.reseedExtremes(7, 77);
+
+        DimensionStats stats = statistics.getStats(7, 77);
+        assertEquals(1, stats.getCount());
+        assertEquals(5, stats.getMin());
+        assertEquals(5, stats.getMax());
+    }
+}
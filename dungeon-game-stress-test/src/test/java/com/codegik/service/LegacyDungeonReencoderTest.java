@@ -0,0 +1,72 @@
+package com.codegik.service;
+
+import com.codegik.entity.DungeonResult;
+import com.codegik.entity.DungeonStorageCodec;
+import com.codegik.game.DungeonGrid;
+import com.codegik.repository.DungeonResultInserter;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class LegacyDungeonReencoderTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DungeonResultInserter inserter;
+
+    @Test
+    @DisplayName("Legacy JSON dungeons are re-encoded so a resubmitted grid finds its row")
+    void testReencodesLegacyDungeons() throws Exception {
+        DungeonGrid resubmitted = new DungeonGrid(2, 2, new int[]{-71, 3, 4, -72});
+        DungeonGrid untouched = new DungeonGrid(1, 3, new int[]{-73, 5, -74});
+        long resubmittedLegacy = insertLegacy("[[-71,3],[4,-72]]", 73);
+        long untouchedLegacy = insertLegacy("[[-73,5,-74]]", 74);
+        // Submitted again before the re-encode, so this grid has a second, binary dungeons row
+        DungeonResult again = inserter.insert(new DungeonResult(DungeonStorageCodec.encode(resubmitted), 73, 2, 2));
+
+        LegacyDungeonReencoder reencoder = new LegacyDungeonReencoder(inserter, 1);
+        reencoder.reencode();
+        assertTrue(reencoder.isDone());
+
+        assertEquals(0, count("SELECT COUNT(*) FROM dungeons WHERE id = ?", resubmittedLegacy));
+        assertEquals(2, count("SELECT COUNT(*) FROM dungeon_submissions WHERE dungeon_id = "
+            + "(SELECT dungeon_id FROM dungeon_submissions WHERE id = ?)", again.getId()));
+        byte[] data = jdbcTemplate.queryForObject("SELECT dungeon_data FROM dungeons WHERE id = ?", byte[].class, untouchedLegacy);
+        assertArrayEquals(DungeonStorageCodec.encode(untouched), data);
+
+        long dungeons = count("SELECT COUNT(*) FROM dungeons");
+        inserter.insert(new DungeonResult(DungeonStorageCodec.encode(untouched), 74, 1, 3));
+        assertEquals(dungeons, count("SELECT COUNT(*) FROM dungeons"));
+    }
+
+    // Mirrors the schema.sql migration: JSON bytes hashed as they are
+    private long insertLegacy(String json, int result) throws Exception {
+        byte[] data = json.getBytes(StandardCharsets.UTF_8);
+        String[] columns = json.substring(2, json.indexOf(']')).split(",");
+        int rows = json.split("\\],\\[").length;
+        jdbcTemplate.update("INSERT INTO dungeons (content_hash, dungeon_data, result, rows, columns) VALUES (?, ?, ?, ?, ?)",
+            MessageDigest.getInstance("SHA-256").digest(data), data, result, rows, columns.length);
+        long id = count("SELECT id FROM dungeons WHERE dungeon_data = ?", (Object) data);
+        jdbcTemplate.update("INSERT INTO dungeon_submissions (dungeon_id, result, rows, columns, created_at) VALUES (?, ?, ?, ?, ?)",
+            id, result, rows, columns.length, Timestamp.valueOf(LocalDateTime.now()));
+        return id;
+    }
+
+    private long count(String sql, Object... args) {
+        return jdbcTemplate.queryForObject(sql, Long.class, args);
+    }
+}
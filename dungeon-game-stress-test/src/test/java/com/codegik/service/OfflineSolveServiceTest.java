@@ -0,0 +1,23 @@
+package com.codegik.service;
+
+import com.codegik.dto.DungeonBinaryFormat;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class OfflineSolveServiceTest {
+
+    @Test
+    @DisplayName("Both offline endpoints are refused while no directory is configured")
+    void testDisabledWithoutDirectory() {
+        OfflineSolveService service = new OfflineSolveService(null, null, null, "", System.getProperty("java.io.tmpdir"), 1024);
+        byte[] body = DungeonBinaryFormat.writeGrid(new int[][]{{-3, 5}, {1, -4}});
+
+        assertThrows(OfflineSolvingDisabledException.class, () -> service.solveFile("dungeon.bin"));
+        assertThrows(OfflineSolvingDisabledException.class,
+            () -> service.solveUpload(new ByteArrayInputStream(body), body.length));
+    }
+}
@@ -0,0 +1,143 @@
+package com.codegik.service;
+
+import com.codegik.dto.ResultDistributionStats;
+import com.codegik.entity.DungeonResult;
+import com.codegik.repository.DungeonResultInserter;
+import com.codegik.repository.DungeonResultStreamer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class ResultDistributionTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DungeonResultStreamer resultStreamer;
+
+    @Autowired
+    private DungeonResultInserter inserter;
+
+    @Test
+    @DisplayName("Distribution merges windows and splits results by rows and columns")
+    void testQueryByDimensionBucket() {
+        ResultDistribution distribution = new ResultDistribution(null, null, 60, 24, 0);
+        for (int value = 1; value <= 100; value++) {
+            distribution.record(result(value, 2, 2, LocalDateTime.now().minusHours(value % 3)));
+        }
+        distribution.record(result(500, 20, 20, LocalDateTime.now()));
+        distribution.record(result(600, 1, 400, LocalDateTime.now()));
+
+        List<ResultDistributionStats> stats = distribution.query(distribution.getRetentionStart(),
+            LocalDateTime.now().plusHours(1), null, false, 10);
+
+        assertEquals(List.of("1-10x1-10", "1-10x101-1000", "11-100x11-100"),
+            stats.stream().map(ResultDistributionStats::getDimensionBucket).toList());
+        ResultDistributionStats small = stats.get(0);
+        assertEquals(100, small.getCount());
+        assertEquals(1, small.getMin());
+        assertEquals(100, small.getMax());
+        assertEquals(50, small.getP50());
+        assertEquals(99, small.getP99());
+        assertEquals(10, small.getHistogram().size());
+        assertEquals(100, small.getHistogram().stream().mapToLong(ResultDistributionStats.Bin::getCount).sum());
+        assertEquals(600, stats.get(1).getMax());
+        assertEquals(500, stats.get(2).getMax());
+    }
+
+    @Test
+    @DisplayName("Distribution reports one entry per window and ignores results outside the range")
+    void testPerWindowQuery() {
+        ResultDistribution distribution = new ResultDistribution(null, null, 60, 24, 0);
+        LocalDateTime now = LocalDateTime.now();
+        distribution.record(result(3, 1, 1, now));
+        distribution.record(result(5, 1, 1, now.minusHours(2)));
+        distribution.record(result(7, 1, 1, now.minusHours(30)));
+
+        List<ResultDistributionStats> stats = distribution.query(now.minusHours(3), now.plusHours(1),
+            DimensionBucket.of(1, 1), true, 20);
+
+        assertEquals(2, stats.size());
+        assertTrue(stats.get(0).getFrom().isBefore(stats.get(1).getFrom()));
+        assertEquals(5, stats.get(0).getMax());
+        assertEquals(3, stats.get(1).getMax());
+    }
+
+    @Test
+    @DisplayName("Dimension buckets split each side into ranges and reject unknown names")
+    void testDimensionBuckets() {
+        assertEquals("1-10x101-1000", DimensionBucket.of(1, 400).getName());
+        assertEquals("11-100x11-100", DimensionBucket.of(20, 20).getName());
+        assertEquals("1001+x1-10", DimensionBucket.of(5000, 10).getName());
+        assertEquals(DimensionBucket.of(20, 20), DimensionBucket.named("11-100x11-100"));
+        assertThrows(IllegalArgumentException.class, () -> DimensionBucket.named("tiny"));
+        assertThrows(IllegalArgumentException.class, () -> DimensionBucket.of(0, 3));
+    }
+
+    @Test
+    @DisplayName("A restart loads the checkpoint and replays only rows from its cutoff on")
+    void testRestartCountsEachRowOnce() {
+        // 7x333 is a shape no other test stores, so the bucket only holds this test's rows
+        LocalDateTime beforeCutoff = LocalDateTime.now().minusMinutes(30);
+        LocalDateTime afterCutoff = LocalDateTime.now().plusMinutes(1);
+        ResultDistribution running = new ResultDistribution(jdbcTemplate, resultStreamer, 60, 24, 0);
+        running.record(inserter.insert(result(11, 7, 333, beforeCutoff, "restart-1")));
+        running.record(inserter.insert(result(12, 7, 333, beforeCutoff, "restart-2")));
+        running.checkpoint();
+        // Created after the cutoff, so it stays staged and only the replay can bring it back
+        running.record(inserter.insert(result(13, 7, 333, afterCutoff, "restart-3")));
+
+        ResultDistribution restarted = new ResultDistribution(jdbcTemplate, resultStreamer, 60, 24, 0);
+        restarted.load();
+
+        List<ResultDistributionStats> stats = restarted.query(restarted.getRetentionStart(),
+            LocalDateTime.now().plusHours(1), DimensionBucket.of(7, 333), false, 10);
+        assertEquals(3, stats.get(0).getCount());
+        assertEquals(11, stats.get(0).getMin());
+        assertEquals(13, stats.get(0).getMax());
+    }
+
+    @Test
+    @DisplayName("A second checkpoint of the same window overwrites the stored histogram")
+    void testCheckpointOverwrites() {
+        // 50x500 falls in a bucket no other test stores
+        LocalDateTime beforeCutoff = LocalDateTime.now().minusMinutes(30);
+        ResultDistribution running = new ResultDistribution(jdbcTemplate, resultStreamer, 60, 24, 0);
+        running.record(inserter.insert(result(21, 50, 500, beforeCutoff, "overwrite-1")));
+        running.checkpoint();
+        running.record(inserter.insert(result(22, 50, 500, beforeCutoff, "overwrite-2")));
+        running.checkpoint();
+
+        assertEquals(1, jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM result_distribution_checkpoints WHERE dimension_bucket = ?", Integer.class,
+            DimensionBucket.of(50, 500).getName()));
+        ResultDistribution restarted = new ResultDistribution(jdbcTemplate, resultStreamer, 60, 24, 0);
+        restarted.load();
+        List<ResultDistributionStats> stats = restarted.query(restarted.getRetentionStart(),
+            LocalDateTime.now().plusHours(1), DimensionBucket.of(50, 500), false, 10);
+        assertEquals(2, stats.get(0).getCount());
+    }
+
+    private static DungeonResult result(int value, int rows, int columns, LocalDateTime createdAt) {
+        return result(value, rows, columns, createdAt, null);
+    }
+
+    private static DungeonResult result(int value, int rows, int columns, LocalDateTime createdAt, String data) {
+        DungeonResult result = new DungeonResult(data == null ? null : data.getBytes(StandardCharsets.UTF_8),
+            value, rows, columns);
+        result.setCreatedAt(createdAt);
+        return result;
+    }
+}
@@ -0,0 +1,139 @@
+package com.codegik.service;
+
+import com.codegik.entity.DungeonResult;
+import com.codegik.repository.DungeonResultInserter;
+import com.codegik.service.ResultPartitionManager.Partition;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class ResultPartitionManagerTest {
+
+    private static final LocalDateTime NOON = LocalDateTime.of(2024, 3, 10, 12, 30);
+
+    @Autowired
+    private ResultPartitionManager partitionManager;
+
+    @Autowired
+    private DungeonResultInserter inserter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Lookups start at the oldest partition the retention keeps, or at no bound when nothing is dropped")
+    void testLookupStart() {
+        ResultPartitionManager hourly = new ResultPartitionManager(null, null, true, PartitionGranularity.HOURLY, 4, 48, 1000);
+        LocalDateTime expected = PartitionGranularity.HOURLY.truncate(LocalDateTime.now().minusHours(48));
+
+        LocalDateTime start = hourly.lookupStart();
+
+        assertTrue(!start.isBefore(expected) && !start.isAfter(expected.plusHours(1)));
+        assertEquals(LocalDateTime.of(1970, 1, 1, 0, 0),
+            new ResultPartitionManager(null, null, false, PartitionGranularity.HOURLY, 4, 48, 1000).lookupStart());
+        assertEquals(LocalDateTime.of(1970, 1, 1, 0, 0),
+            new ResultPartitionManager(null, null, true, PartitionGranularity.DAILY, 4, 0, 1000).lookupStart());
+    }
+
+    @Test
+    @DisplayName("Creates one partition per period up to the premake horizon")
+    void testMissingOnEmptyTable() {
+        LocalDateTime from = PartitionGranularity.DAILY.truncate(NOON);
+
+        List<Partition> missing = ResultPartitionManager.missing(List.of(), from, from.plusDays(3),
+            PartitionGranularity.DAILY);
+
+        assertEquals(3, missing.size());
+        assertEquals("dungeon_submissions_p20240310", missing.get(0).name());
+        assertEquals(LocalDateTime.of(2024, 3, 10, 0, 0), missing.get(0).from());
+        assertEquals(LocalDateTime.of(2024, 3, 11, 0, 0), missing.get(0).to());
+        assertEquals("dungeon_submissions_p20240312", missing.get(2).name());
+    }
+
+    @Test
+    @DisplayName("Skips covered periods and fills gaps around partitions of another size")
+    void testMissingAroundExistingPartitions() {
+        List<Partition> existing = List.of(
+            new Partition("dungeon_submissions_legacy", null, LocalDateTime.of(2024, 3, 11, 0, 0), false),
+            new Partition("dungeon_submissions_p2024031106", LocalDateTime.of(2024, 3, 11, 6, 0),
+                LocalDateTime.of(2024, 3, 11, 7, 0), false));
+
+        List<Partition> missing = ResultPartitionManager.missing(existing, LocalDateTime.of(2024, 3, 10, 0, 0),
+            LocalDateTime.of(2024, 3, 13, 0, 0), PartitionGranularity.DAILY);
+
+        assertEquals(3, missing.size());
+        assertEquals(LocalDateTime.of(2024, 3, 11, 0, 0), missing.get(0).from());
+        assertEquals(LocalDateTime.of(2024, 3, 11, 6, 0), missing.get(0).to());
+        assertEquals("dungeon_submissions_p2024031107", missing.get(1).name());
+        assertEquals(LocalDateTime.of(2024, 3, 12, 0, 0), missing.get(1).to());
+        assertEquals("dungeon_submissions_p20240312", missing.get(2).name());
+    }
+
+    @Test
+    @DisplayName("Hourly partitions are named by date and hour")
+    void testHourlyNames() {
+        LocalDateTime from = PartitionGranularity.HOURLY.truncate(NOON);
+
+        List<Partition> missing = ResultPartitionManager.missing(List.of(), from, from.plusHours(2),
+            PartitionGranularity.HOURLY);
+
+        assertEquals(2, missing.size());
+        assertEquals("dungeon_submissions_p2024031012", missing.get(0).name());
+        assertEquals(LocalDateTime.of(2024, 3, 10, 13, 0), missing.get(0).to());
+    }
+
+    @Test
+    @DisplayName("Parses range bounds reported by Postgres and ignores the default partition")
+    void testParseBounds() {
+        Partition partition = ResultPartitionManager.parse("dungeon_submissions_legacy",
+            "FOR VALUES FROM (MINVALUE) TO ('2024-03-11 00:00:00')", false);
+
+        assertNull(partition.from());
+        assertEquals(LocalDateTime.of(2024, 3, 11, 0, 0), partition.to());
+        assertTrue(partition.contains(LocalDateTime.of(1999, 1, 1, 0, 0)));
+        assertFalse(partition.contains(LocalDateTime.of(2024, 3, 11, 0, 0)));
+        assertNull(ResultPartitionManager.parse("dungeon_submissions_default", "DEFAULT", false));
+    }
+
+    @Test
+    @DisplayName("Purge deletes grids whose last submission is gone and keeps grids still referenced")
+    void testPurgeOrphans() {
+        DungeonResult expired = inserter.insert(new DungeonResult(bytes("purge-expired"), 7, 1, 5));
+        DungeonResult sharedOld = inserter.insert(new DungeonResult(bytes("purge-shared"), 3, 1, 3));
+        inserter.insert(new DungeonResult(bytes("purge-shared"), 3, 1, 3));
+        long expiredDungeon = dungeonIdOf(expired);
+        long sharedDungeon = dungeonIdOf(sharedOld);
+
+        // Stands in for dropping the partition that held the older submissions
+        jdbcTemplate.update("DELETE FROM dungeon_submissions WHERE id IN (?, ?)", expired.getId(), sharedOld.getId());
+
+        assertEquals(1, partitionManager.purgeOrphans(List.of(expiredDungeon, sharedDungeon)));
+        assertEquals(0, countDungeons(expiredDungeon));
+        assertEquals(1, countDungeons(sharedDungeon));
+    }
+
+    private long dungeonIdOf(DungeonResult result) {
+        return jdbcTemplate.queryForObject("SELECT dungeon_id FROM dungeon_submissions WHERE id = ?", Long.class,
+            result.getId());
+    }
+
+    private int countDungeons(long id) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM dungeons WHERE id = ?", Integer.class, id);
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
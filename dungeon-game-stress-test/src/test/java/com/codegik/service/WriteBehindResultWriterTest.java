@@ -0,0 +1,108 @@
+package com.codegik.service;
+
+import com.codegik.entity.DungeonResult;
+import com.codegik.repository.DungeonResultInserter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class WriteBehindResultWriterTest {
+
+    @Test
+    @DisplayName("A batch that keeps failing is written row by row and only the bad row is lost")
+    void testFallsBackToSingleRows() throws Exception {
+        FlakyInserter inserter = new FlakyInserter(Integer.MAX_VALUE, -99);
+        MeterRegistry registry = new SimpleMeterRegistry();
+        WriteBehindResultWriter writer = writer(inserter, registry);
+
+        writer.submit(result(5));
+        writer.submit(result(-99));
+        writer.submit(result(7));
+        writer.flush();
+
+        assertEquals(2, writer.getWrittenCount());
+        assertEquals(1, writer.getFailedCount());
+        assertEquals(List.of(5, 7), inserter.inserted);
+        assertEquals(1.0, registry.get("dungeon.write.behind.rows").tag("outcome", "failed").functionCounter().count());
+    }
+
+    @Test
+    @DisplayName("A batch that fails once is retried whole")
+    void testRetriesBatch() throws Exception {
+        FlakyInserter inserter = new FlakyInserter(1, Integer.MIN_VALUE);
+        WriteBehindResultWriter writer = writer(inserter, new SimpleMeterRegistry());
+
+        writer.submit(result(5));
+        writer.submit(result(6));
+        writer.flush();
+
+        assertEquals(2, writer.getWrittenCount());
+        assertEquals(0, writer.getFailedCount());
+        assertEquals(1, writer.getBatchRetryCount());
+        assertEquals(List.of(5, 6), inserter.inserted);
+    }
+
+    @Test
+    @DisplayName("Results submitted after shutdown are saved synchronously instead of queued")
+    void testSubmitAfterFlushSavesSynchronously() throws Exception {
+        FlakyInserter inserter = new FlakyInserter(0, Integer.MIN_VALUE);
+        WriteBehindResultWriter writer = writer(inserter, new SimpleMeterRegistry());
+        writer.flush();
+
+        writer.submit(result(3));
+
+        assertEquals(0, writer.getPendingCount());
+        assertEquals(1, writer.getSynchronousFallbackCount());
+        assertEquals(List.of(3), inserter.inserted);
+    }
+
+    private static WriteBehindResultWriter writer(DungeonResultInserter inserter, MeterRegistry registry) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate();
+        DungeonStatistics statistics = new DungeonStatistics(jdbcTemplate, new ResultDistribution(jdbcTemplate, null, 60, 168, 0));
+        return new WriteBehindResultWriter(inserter, statistics, new DatabaseConcurrencyLimiter(false, 10, 1000),
+            registry, true, 100, 500, 10, 100, 1);
+    }
+
+    private static DungeonResult result(int value) {
+        return new DungeonResult(new byte[]{(byte) value}, value, 1, 1);
+    }
+
+    // Fails the first batchFailures batches, and any single insert of badResult
+    private static final class FlakyInserter extends DungeonResultInserter {
+        private final AtomicInteger batchFailures;
+        private final int badResult;
+        final List<Integer> inserted = new CopyOnWriteArrayList<>();
+
+        FlakyInserter(int batchFailures, int badResult) {
+            super(new JdbcTemplate());
+            this.batchFailures = new AtomicInteger(batchFailures);
+            this.badResult = badResult;
+        }
+
+        @Override
+        public void insertAll(List<DungeonResult> results) {
+            if (batchFailures.getAndDecrement() > 0) {
+                throw new DataAccessResourceFailureException("connection refused");
+            }
+            results.forEach(result -> inserted.add(result.getResult()));
+        }
+
+        @Override
+        public DungeonResult insert(DungeonResult result) {
+            if (result.getResult() == badResult) {
+                throw new DataAccessResourceFailureException("value out of range");
+            }
+            inserted.add(result.getResult());
+            return result;
+        }
+    }
+}
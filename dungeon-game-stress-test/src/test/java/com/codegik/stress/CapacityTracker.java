@@ -0,0 +1,189 @@
+package com.codegik.stress;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency and error bookkeeping for {@link DungeonGameCapacityTest}. Requests are attributed to the
+ * stair level running when they started; samples taken during the ramps between levels are
+ * dropped. A level is judged a grace period after it ends, once its slowest responses are in: it
+ * breaches the SLO when its p99 or error rate is over the limit, and the knee is the achieved rate
+ * of the last level before the first breach.
+ */
+public class CapacityTracker {
+
+    // Levels with fewer samples are not judged, so a slow start cannot end the search
+    private static final int MIN_SAMPLES = 20;
+    private static final long MIN_GRACE_MILLIS = 2000;
+
+    private final double startRate;
+    private final double rateStep;
+    private final long levelMillis;
+    private final long rampMillis;
+    private final long graceMillis;
+    private final long sloP99Millis;
+    private final double sloErrorPercent;
+    private final Level[] levels;
+    private volatile long startMillis;
+    private volatile int judgedLevels;
+    private volatile int breachedLevel = -1;
+
+    private static final class Level {
+        final Histogram latencies = new ConcurrentHistogram(60_000, 3);
+        final LongAdder errors = new LongAdder();
+    }
+
+    public CapacityTracker(double startRate, double rateStep, int levelCount, int levelSeconds, int rampSeconds,
+                           long sloP99Millis, double sloErrorPercent) {
+        this.startRate = startRate;
+        this.rateStep = rateStep;
+        this.levelMillis = levelSeconds * 1000L;
+        this.rampMillis = rampSeconds * 1000L;
+        this.graceMillis = Math.max(rampMillis, MIN_GRACE_MILLIS);
+        this.sloP99Millis = sloP99Millis;
+        this.sloErrorPercent = sloErrorPercent;
+        this.levels = new Level[levelCount];
+        for (int i = 0; i < levelCount; i++) {
+            levels[i] = new Level();
+        }
+    }
+
+    public void start() {
+        startMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * Level index for a request started at {@code startedAtMillis}, or -1 during a ramp.
+     */
+    public int levelAt(long startedAtMillis) {
+        long elapsed = startedAtMillis - startMillis;
+        long period = levelMillis + rampMillis;
+        int level = (int) (elapsed / period);
+        if (elapsed < 0 || level >= levels.length || elapsed % period >= levelMillis) {
+            return -1;
+        }
+        return level;
+    }
+
+    public void record(int level, long responseMillis, boolean failed) {
+        if (level < 0) {
+            return;
+        }
+        if (failed) {
+            levels[level].errors.increment();
+        }
+        levels[level].latencies.recordValue(Math.min(responseMillis, 60_000));
+    }
+
+    /**
+     * Judges every level that has finished since the last call and reports whether any breached.
+     */
+    public boolean breached() {
+        if (breachedLevel >= 0) {
+            return true;
+        }
+        long elapsed = System.currentTimeMillis() - startMillis - levelMillis - graceMillis;
+        int finished = elapsed < 0 ? 0 : (int) Math.min(levels.length, elapsed / (levelMillis + rampMillis) + 1);
+        return finished > judgedLevels && judge(finished);
+    }
+
+    private synchronized boolean judge(int finished) {
+        if (breachedLevel >= 0) {
+            return true;
+        }
+        for (int i = judgedLevels; i < finished; i++) {
+            if (isBreach(levels[i])) {
+                breachedLevel = i;
+                break;
+            }
+        }
+        judgedLevels = Math.max(judgedLevels, finished);
+        return breachedLevel >= 0;
+    }
+
+    private boolean isBreach(Level level) {
+        long count = level.latencies.getTotalCount();
+        if (count < MIN_SAMPLES) {
+            return false;
+        }
+        return level.latencies.getValueAtPercentile(99.0) > sloP99Millis
+            || 100.0 * level.errors.sum() / count > sloErrorPercent;
+    }
+
+    /**
+     * Judges every level that started, so call it only after the run has ended.
+     */
+    public void finish() {
+        long elapsed = System.currentTimeMillis() - startMillis;
+        judge((int) Math.min(levels.length, elapsed / (levelMillis + rampMillis) + 1));
+    }
+
+    public String report(String endpoint, int nodeId, int totalNodes) {
+        StringBuilder table = new StringBuilder();
+        table.append(String.format(Locale.ROOT, "Capacity search for %s (node %d of %d), SLO p99 <= %d ms, errors <= %.2f%%%n",
+            endpoint, nodeId, totalNodes, sloP99Millis, sloErrorPercent));
+        table.append(String.format(Locale.ROOT, "%6s %12s %12s %10s %10s %8s  %s%n",
+            "level", "target rps", "achieved rps", "p50 ms", "p99 ms", "errors", "verdict"));
+
+        int lastLevel = breachedLevel >= 0 ? breachedLevel : Math.min(judgedLevels, levels.length) - 1;
+        for (int i = 0; i <= lastLevel; i++) {
+            Level level = levels[i];
+            long count = level.latencies.getTotalCount();
+            table.append(String.format(Locale.ROOT, "%6d %12.1f %12.1f %10d %10d %7.2f%%  %s%n",
+                i, targetRate(i), achievedRate(level), level.latencies.getValueAtPercentile(50.0),
+                level.latencies.getValueAtPercentile(99.0), count == 0 ? 0.0 : 100.0 * level.errors.sum() / count,
+                i == breachedLevel ? "BREACH" : (count < MIN_SAMPLES ? "too few samples" : "ok")));
+        }
+
+        double knee = kneeRate();
+        table.append(String.format(Locale.ROOT, "Knee: %.1f req/s on this node, %.1f req/s across %d node(s)%s%n",
+            knee, knee * totalNodes, totalNodes, breachedLevel < 0 ? " (no breach, raise LEVELS or RATE_STEP)" : ""));
+        return table.toString();
+    }
+
+    public void writeJson(Path file, String endpoint, int nodeId, int totalNodes) throws IOException {
+        StringBuilder json = new StringBuilder();
+        json.append(String.format(Locale.ROOT,
+            "{\"endpoint\":\"%s\",\"nodeId\":%d,\"totalNodes\":%d,\"sloP99Millis\":%d,\"sloErrorPercent\":%.4f,"
+                + "\"breached\":%b,\"kneeRps\":%.3f,\"globalKneeRps\":%.3f,\"firstBreachTargetRps\":%s,\"firstBreachGlobalRps\":%s,\"levels\":[",
+            endpoint, nodeId, totalNodes, sloP99Millis, sloErrorPercent, breachedLevel >= 0, kneeRate(),
+            kneeRate() * totalNodes, breachRate(1), breachRate(totalNodes)));
+        int lastLevel = breachedLevel >= 0 ? breachedLevel : Math.min(judgedLevels, levels.length) - 1;
+        for (int i = 0; i <= lastLevel; i++) {
+            Level level = levels[i];
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append(String.format(Locale.ROOT,
+                "{\"targetRps\":%.3f,\"achievedRps\":%.3f,\"count\":%d,\"errors\":%d,\"p50Millis\":%d,\"p99Millis\":%d}",
+                targetRate(i), achievedRate(level), level.latencies.getTotalCount(), level.errors.sum(),
+                level.latencies.getValueAtPercentile(50.0), level.latencies.getValueAtPercentile(99.0)));
+        }
+        json.append("]}\n");
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, json);
+    }
+
+    private String breachRate(int totalNodes) {
+        return breachedLevel < 0 ? "null" : String.format(Locale.ROOT, "%.3f", targetRate(breachedLevel) * totalNodes);
+    }
+
+    private double kneeRate() {
+        int lastPassing = (breachedLevel >= 0 ? breachedLevel : Math.min(judgedLevels, levels.length)) - 1;
+        return lastPassing < 0 ? 0.0 : achievedRate(levels[lastPassing]);
+    }
+
+    private double targetRate(int level) {
+        return startRate + level * rateStep;
+    }
+
+    private double achievedRate(Level level) {
+        return level.latencies.getTotalCount() * 1000.0 / levelMillis;
+    }
+}
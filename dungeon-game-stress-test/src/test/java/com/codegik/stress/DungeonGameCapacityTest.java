@@ -0,0 +1,178 @@
+package com.codegik.stress;
+
+import io.gatling.javaapi.core.ScenarioBuilder;
+import io.gatling.javaapi.core.Simulation;
+import io.gatling.javaapi.http.HttpProtocolBuilder;
+import io.gatling.javaapi.http.HttpRequestActionBuilder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static io.gatling.javaapi.core.CoreDsl.StringBody;
+import static io.gatling.javaapi.core.CoreDsl.incrementUsersPerSec;
+import static io.gatling.javaapi.core.CoreDsl.jsonPath;
+import static io.gatling.javaapi.core.CoreDsl.responseTimeInMillis;
+import static io.gatling.javaapi.core.CoreDsl.scenario;
+import static io.gatling.javaapi.http.HttpDsl.http;
+import static io.gatling.javaapi.http.HttpDsl.status;
+
+/**
+ * Finds the highest arrival rate one endpoint sustains within a latency/error SLO. The arrival
+ * rate climbs in stairs (START_RATE, then +RATE_STEP for up to LEVELS levels of LEVEL_DURATION
+ * seconds each) and the run stops at the first level whose p99 or error rate breaches the SLO.
+ * The knee is printed and written to target/capacity/ENDPOINT-nodeN.json; capacity-search.sh
+ * repeats runs with a shrinking step to bisect between the last passing and first failing rate.
+ *
+ * With NODE_ID/TOTAL_NODES each node drives its share of every level, so the reported global
+ * knee assumes the nodes start together.
+ *
+ * The default ENDPOINT, calculate-generated, posts distinct generated dungeons, so every request is
+ * solved and stored. calculate posts one fixed grid, which the result cache answers after the first
+ * request, so its knee is that of the cache-hit path.
+ *
+ * ./mvnw gatling:test -Dgatling.simulationClass=com.codegik.stress.DungeonGameCapacityTest
+ */
+public class DungeonGameCapacityTest extends Simulation {
+
+    private static final int NODE_ID = getEnvAsInt("NODE_ID", 1);
+    private static final int TOTAL_NODES = getEnvAsInt("TOTAL_NODES", 1);
+    private static final String ENDPOINT = System.getenv().getOrDefault("ENDPOINT", "calculate-generated");
+    private static final double START_RATE = getEnvAsDouble("START_RATE", 10);
+    private static final double RATE_STEP = getEnvAsDouble("RATE_STEP", 10);
+    private static final int LEVELS = getEnvAsInt("LEVELS", 20);
+    private static final int LEVEL_DURATION = getEnvAsInt("LEVEL_DURATION", 30);
+    private static final int RAMP_DURATION = getEnvAsInt("RAMP_DURATION", 5);
+    private static final int SLO_P99_MS = getEnvAsInt("SLO_P99_MS", 500);
+    private static final double SLO_ERROR_PCT = getEnvAsDouble("SLO_ERROR_PCT", 1.0);
+    private static final String BASE_URL = System.getenv().getOrDefault("BASE_URL", "http://localhost:8080");
+
+    // Each node drives its share of every level
+    private static final double NODE_START_RATE = START_RATE / TOTAL_NODES;
+    private static final double NODE_RATE_STEP = RATE_STEP / TOTAL_NODES;
+
+    private static final String RESPONSE_TIME = "responseTime";
+    private static final String STARTED_AT = "startedAt";
+
+    private static int getEnvAsInt(String envName, int defaultValue) {
+        return (int) getEnvAsDouble(envName, defaultValue);
+    }
+
+    private static double getEnvAsDouble(String envName, double defaultValue) {
+        String envValue = System.getenv(envName);
+        if (envValue != null && !envValue.trim().isEmpty()) {
+            try {
+                return Double.parseDouble(envValue.trim());
+            } catch (NumberFormatException e) {
+                System.out.println("Warning: Invalid value for " + envName + ": " + envValue + ", using default: " + defaultValue);
+                return defaultValue;
+            }
+        }
+        return defaultValue;
+    }
+
+    private final CapacityTracker tracker = new CapacityTracker(NODE_START_RATE, NODE_RATE_STEP, LEVELS,
+            LEVEL_DURATION, RAMP_DURATION, SLO_P99_MS, SLO_ERROR_PCT);
+
+    private final HttpProtocolBuilder httpProtocol = http
+            .baseUrl(BASE_URL)
+            .acceptHeader("application/json")
+            .contentTypeHeader("application/json")
+            .userAgentHeader("Gatling/DungeonGame/Capacity-Node-" + NODE_ID);
+
+    private final DungeonGenerator generator = DungeonGenerator.fromEnvironment(false);
+
+    // One request per endpoint; each run measures a single endpoint so their knees stay independent
+    private final Map<String, HttpRequestActionBuilder> endpoints = Map.of(
+            // The same grid every time: all but the first request are result cache hits
+            "calculate", http("calculate")
+                    .post("/api/dungeon/calculate")
+                    .body(StringBody("{\"dungeon\": [[-2, -3, 4], [-1, -2, -2], [4, 2, 1]]}"))
+                    .check(responseTimeInMillis().saveAs(RESPONSE_TIME))
+                    .check(status().is(200))
+                    .check(jsonPath("$.result").ofInt().is(4)),
+            "calculate-generated", http("calculate-generated")
+                    .post("/api/dungeon/calculate")
+                    .body(StringBody(session -> session.getString(DungeonGenerator.BODY)))
+                    .check(responseTimeInMillis().saveAs(RESPONSE_TIME))
+                    .check(status().is(200))
+                    .check(jsonPath("$.result").ofInt().is(session -> session.getInt(DungeonGenerator.EXPECTED_RESULT))),
+            "results", read("results", "/api/dungeon/results"),
+            "results-dimensions", read("results-dimensions", "/api/dungeon/results/dimensions/3/3"),
+            "results-result", read("results-result", "/api/dungeon/results/result/4"),
+            "stats-count", read("stats-count", "/api/dungeon/stats/count"),
+            "stats-average", read("stats-average", "/api/dungeon/stats/average/3/3"),
+            "stats-dimensions", read("stats-dimensions", "/api/dungeon/stats/dimensions"),
+            "health", read("health", "/api/dungeon/health")
+    );
+
+    private static HttpRequestActionBuilder read(String name, String path) {
+        return http(name)
+                .get(path)
+                .check(responseTimeInMillis().saveAs(RESPONSE_TIME))
+                .check(status().is(200));
+    }
+
+    private ScenarioBuilder search() {
+        HttpRequestActionBuilder request = endpoints.get(ENDPOINT);
+        if (request == null) {
+            throw new IllegalArgumentException("Unknown ENDPOINT " + ENDPOINT + ", expected one of " + endpoints.keySet());
+        }
+        ScenarioBuilder scenario = scenario("Capacity Search - " + ENDPOINT + " - Node " + NODE_ID)
+                .stopLoadGeneratorIf(session -> "SLO breached, capacity search finished", session -> tracker.breached())
+                .exec(session -> session.set(STARTED_AT, System.currentTimeMillis()));
+        if (ENDPOINT.equals("calculate-generated")) {
+            scenario = scenario.feed(generator.feeder());
+        }
+        return scenario
+                .exec(request)
+                .exec(session -> {
+                    int level = tracker.levelAt(session.getLong(STARTED_AT));
+                    long responseMillis = session.contains(RESPONSE_TIME)
+                            ? session.getInt(RESPONSE_TIME)
+                            : System.currentTimeMillis() - session.getLong(STARTED_AT);
+                    tracker.record(level, responseMillis, session.isFailed());
+                    return session;
+                });
+    }
+
+    {
+        System.out.println("=== Capacity Search Configuration ===");
+        System.out.println("Endpoint: " + ENDPOINT);
+        System.out.println("Node ID: " + NODE_ID + " of " + TOTAL_NODES);
+        System.out.println("Stairs: " + START_RATE + " req/s + " + RATE_STEP + " x " + LEVELS
+                + " levels of " + LEVEL_DURATION + "s (" + RAMP_DURATION + "s ramps)");
+        System.out.println("SLO: p99 <= " + SLO_P99_MS + " ms, errors <= " + SLO_ERROR_PCT + "%");
+        System.out.println("Base URL: " + BASE_URL);
+        System.out.println("=====================================");
+
+        setUp(
+            search().injectOpen(
+                incrementUsersPerSec(NODE_RATE_STEP)
+                    .times(LEVELS)
+                    .eachLevelLasting(LEVEL_DURATION)
+                    .separatedByRampsLasting(RAMP_DURATION)
+                    .startingFrom(NODE_START_RATE)
+            )
+        )
+        .protocols(httpProtocol);
+    }
+
+    @Override
+    public void before() {
+        generator.awaitPool();
+        tracker.start();
+    }
+
+    @Override
+    public void after() {
+        tracker.finish();
+        String report = tracker.report(ENDPOINT, NODE_ID, TOTAL_NODES);
+        System.out.println(report);
+        try {
+            tracker.writeJson(Path.of("target", "capacity", ENDPOINT + "-node" + NODE_ID + ".json"), ENDPOINT, NODE_ID, TOTAL_NODES);
+        } catch (IOException e) {
+            System.out.println("Warning: could not write capacity report: " + e.getMessage());
+        }
+    }
+}
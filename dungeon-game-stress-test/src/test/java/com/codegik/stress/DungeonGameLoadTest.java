@@ -22,12 +22,22 @@ public class DungeonGameLoadTest extends Simulation {
         }
         """;
 
+    private final DungeonGenerator generator = DungeonGenerator.fromEnvironment(false);
+
     private final ScenarioBuilder basicLoad = scenario("Basic Load Test")
             .exec(
                 http("calculate-dungeon")
                         .post("/api/dungeon/calculate")
                         .body(StringBody(testDungeon))
                         .check(status().is(200))
+            )
+            .feed(generator.feeder())
+            .exec(
+                http("calculate-generated")
+                        .post("/api/dungeon/calculate")
+                        .body(StringBody(session -> session.getString(DungeonGenerator.BODY)))
+                        .check(status().is(200))
+                        .check(jsonPath("$.result").ofInt().is(session -> session.getInt(DungeonGenerator.EXPECTED_RESULT)))
             );
 
     {
@@ -43,4 +53,9 @@ public class DungeonGameLoadTest extends Simulation {
             global().successfulRequests().percent().gt(99.0)
         );
     }
+
+    @Override
+    public void before() {
+        generator.awaitPool();
+    }
 }
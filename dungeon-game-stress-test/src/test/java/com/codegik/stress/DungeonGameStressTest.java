@@ -1,13 +1,18 @@
 package com.codegik.stress;
 
+import com.codegik.dto.DungeonBinaryFormat;
+import com.codegik.stress.DungeonGenerator.GeneratedDungeon;
 import io.gatling.javaapi.core.ScenarioBuilder;
 import io.gatling.javaapi.core.Simulation;
 import io.gatling.javaapi.http.HttpProtocolBuilder;
+import io.gatling.javaapi.http.HttpRequestActionBuilder;
 
 import static io.gatling.javaapi.core.CoreDsl.scenario;
 import static io.gatling.javaapi.core.CoreDsl.global;
 import static io.gatling.javaapi.core.CoreDsl.rampUsers;
 import static io.gatling.javaapi.core.CoreDsl.StringBody;
+import static io.gatling.javaapi.core.CoreDsl.ByteArrayBody;
+import static io.gatling.javaapi.core.CoreDsl.bodyBytes;
 import static io.gatling.javaapi.core.CoreDsl.bodyString;
 import static io.gatling.javaapi.core.CoreDsl.jsonPath;
 import static io.gatling.javaapi.core.CoreDsl.pause;
@@ -27,6 +32,9 @@ public class DungeonGameStressTest extends Simulation {
 
     private static final String BASE_URL = System.getenv().getOrDefault("BASE_URL", "http://localhost:8080");
 
+    // "json" (default) or "binary" to post application/x-dungeon bodies to /calculate
+    private static final boolean BINARY_FORMAT = "binary".equalsIgnoreCase(System.getenv().getOrDefault("WIRE_FORMAT", "json"));
+
     private static int getEnvAsInt(String envName, int defaultValue) {
         String envValue = System.getenv(envName);
         if (envValue != null && !envValue.trim().isEmpty()) {
@@ -47,25 +55,51 @@ public class DungeonGameStressTest extends Simulation {
             .contentTypeHeader("application/json")
             .userAgentHeader("Gatling/DungeonGame/Node-" + NODE_ID);
 
-    // Test data
-    private final String simpleDungeon = """
-        {
-            "dungeon": [
-                [-3, 5],
-                [1, -4]
-            ]
+    // Test data; the JSON and binary bodies and the expected result all come from the same grid
+    private final GeneratedDungeon simpleDungeon = GeneratedDungeon.of(new int[][]{{-3, 5}, {1, -4}});
+
+    private final GeneratedDungeon mediumDungeon = GeneratedDungeon.of(new int[][]{{-2, -3, 4}, {-1, -2, -2}, {4, 2, 1}});
+
+    private final DungeonGenerator generator = DungeonGenerator.fromEnvironment(BINARY_FORMAT);
+
+    private HttpRequestActionBuilder calculate(String name, GeneratedDungeon dungeon) {
+        if (BINARY_FORMAT) {
+            return http(name)
+                    .post("/api/dungeon/calculate")
+                    .header("Content-Type", DungeonBinaryFormat.MEDIA_TYPE_VALUE)
+                    .header("Accept", DungeonBinaryFormat.MEDIA_TYPE_VALUE)
+                    .body(ByteArrayBody(DungeonBinaryFormat.writeGrid(dungeon.grid())))
+                    .check(status().is(200))
+                    .check(bodyBytes().transform(bytes -> DungeonBinaryFormat.readResponse(bytes).getMessage()).is("Success"))
+                    .check(bodyBytes().transform(bytes -> DungeonBinaryFormat.readResponse(bytes).getResult())
+                            .is(dungeon.expectedResult()));
         }
-        """;
-
-    private final String mediumDungeon = """
-        {
-            "dungeon": [
-                [-2, -3, 4],
-                [-1, -2, -2], 
-                [4, 2, 1]
-            ]
+        return http(name)
+                .post("/api/dungeon/calculate")
+                .body(StringBody(dungeon.json()))
+                .check(status().is(200))
+                .check(jsonPath("$.message").is("Success"))
+                .check(jsonPath("$.result").ofInt().is(dungeon.expectedResult()));
+    }
+
+    // Posts the dungeon fed by the generator and checks the result against its precomputed answer
+    private HttpRequestActionBuilder calculateGenerated() {
+        if (BINARY_FORMAT) {
+            return http("calculate-generated")
+                    .post("/api/dungeon/calculate")
+                    .header("Content-Type", DungeonBinaryFormat.MEDIA_TYPE_VALUE)
+                    .header("Accept", DungeonBinaryFormat.MEDIA_TYPE_VALUE)
+                    .body(ByteArrayBody(session -> (byte[]) session.get(DungeonGenerator.BODY)))
+                    .check(status().is(200))
+                    .check(bodyBytes().transform(bytes -> DungeonBinaryFormat.readResponse(bytes).getResult())
+                            .is(session -> session.getInt(DungeonGenerator.EXPECTED_RESULT)));
         }
-        """;
+        return http("calculate-generated")
+                .post("/api/dungeon/calculate")
+                .body(StringBody(session -> session.getString(DungeonGenerator.BODY)))
+                .check(status().is(200))
+                .check(jsonPath("$.result").ofInt().is(session -> session.getInt(DungeonGenerator.EXPECTED_RESULT)));
+    }
 
     // Distributed mixed workload scenario - combines all operations
     private final ScenarioBuilder distributedWorkload = scenario("Distributed Workload - Node " + NODE_ID)
@@ -76,23 +110,12 @@ public class DungeonGameStressTest extends Simulation {
                         .check(bodyString().is("Dungeon Game API is running"))
             )
             .pause(1, 2)
-            .exec(
-                http("calculate-simple")
-                        .post("/api/dungeon/calculate")
-                        .body(StringBody(simpleDungeon))
-                        .check(status().is(200))
-                        .check(jsonPath("$.message").is("Success"))
-                        .check(jsonPath("$.result").exists())
-            )
+            .exec(calculate("calculate-simple", simpleDungeon))
             .pause(1, 3)
-            .exec(
-                http("calculate-medium")
-                        .post("/api/dungeon/calculate")
-                        .body(StringBody(mediumDungeon))
-                        .check(status().is(200))
-                        .check(jsonPath("$.message").is("Success"))
-                        .check(jsonPath("$.result").exists())
-            )
+            .exec(calculate("calculate-medium", mediumDungeon))
+            .pause(1, 2)
+            .feed(generator.feeder())
+            .exec(calculateGenerated())
             .pause(1, 2)
             .exec(
                 http("get-results")
@@ -116,6 +139,7 @@ public class DungeonGameStressTest extends Simulation {
         System.out.println("Users per Node: " + USERS_PER_NODE);
         System.out.println("Test Duration: " + TEST_DURATION + "s");
         System.out.println("Base URL: " + BASE_URL);
+        System.out.println("Wire Format: " + (BINARY_FORMAT ? "binary" : "json"));
         System.out.println("=======================================");
 
         setUp(
@@ -132,4 +156,9 @@ public class DungeonGameStressTest extends Simulation {
             global().successfulRequests().percent().gt(95.0)
         );
     }
+
+    @Override
+    public void before() {
+        generator.awaitPool();
+    }
 }
@@ -0,0 +1,108 @@
+package com.codegik.stress;
+
+import io.gatling.javaapi.core.ScenarioBuilder;
+import io.gatling.javaapi.core.Simulation;
+import io.gatling.javaapi.http.HttpProtocolBuilder;
+
+import java.util.Collections;
+
+import static io.gatling.javaapi.core.CoreDsl.StringBody;
+import static io.gatling.javaapi.core.CoreDsl.constantConcurrentUsers;
+import static io.gatling.javaapi.core.CoreDsl.exec;
+import static io.gatling.javaapi.core.CoreDsl.global;
+import static io.gatling.javaapi.core.CoreDsl.jsonPath;
+import static io.gatling.javaapi.core.CoreDsl.rampConcurrentUsers;
+import static io.gatling.javaapi.core.CoreDsl.scenario;
+import static io.gatling.javaapi.http.HttpDsl.http;
+import static io.gatling.javaapi.http.HttpDsl.status;
+
+/**
+ * Closed-model /calculate saturation run used to compare server modes (e.g. synchronous saves vs
+ * write-behind). Start the app in one mode, run this with a matching LABEL, restart in the other
+ * mode and run again; the two reports' requests/sec are directly comparable.
+ *
+ * ./mvnw gatling:test -Dgatling.simulationClass=com.codegik.stress.DungeonGameThroughputTest
+ */
+public class DungeonGameThroughputTest extends Simulation {
+
+    private static final int CONCURRENCY = getEnvAsInt("CONCURRENCY", 100);
+    private static final int TEST_DURATION = getEnvAsInt("TEST_DURATION", 60);
+    // Dungeons per request; above 1 the scenario posts to /calculate/batch instead
+    private static final int BATCH_SIZE = getEnvAsInt("BATCH_SIZE", 1);
+    private static final String LABEL = System.getenv().getOrDefault("LABEL", "default");
+    private static final String BASE_URL = System.getenv().getOrDefault("BASE_URL", "http://localhost:8080");
+
+    private static int getEnvAsInt(String envName, int defaultValue) {
+        String envValue = System.getenv(envName);
+        if (envValue != null && !envValue.trim().isEmpty()) {
+            try {
+                return Integer.parseInt(envValue.trim());
+            } catch (NumberFormatException e) {
+                System.out.println("Warning: Invalid value for " + envName + ": " + envValue + ", using default: " + defaultValue);
+                return defaultValue;
+            }
+        }
+        return defaultValue;
+    }
+
+    private final HttpProtocolBuilder httpProtocol = http
+            .baseUrl(BASE_URL)
+            .acceptHeader("application/json")
+            .contentTypeHeader("application/json")
+            .shareConnections();
+
+    private final String mediumDungeon = """
+        {
+            "dungeon": [
+                [-2, -3, 4],
+                [-1, -2, -2],
+                [4, 2, 1]
+            ]
+        }
+        """;
+
+    private final String mediumBatch = "{\"dungeons\": ["
+            + String.join(",", Collections.nCopies(BATCH_SIZE, "[[-2, -3, 4], [-1, -2, -2], [4, 2, 1]]"))
+            + "]}";
+
+    private final ScenarioBuilder saturate = scenario("Calculate Throughput - " + LABEL)
+            .forever().on(
+                BATCH_SIZE > 1
+                    ? exec(
+                        http("calculate-batch")
+                                .post("/api/dungeon/calculate/batch")
+                                .body(StringBody(mediumBatch))
+                                .check(status().is(200))
+                                .check(jsonPath("$.succeeded").ofInt().is(BATCH_SIZE))
+                    )
+                    : exec(
+                        http("calculate")
+                                .post("/api/dungeon/calculate")
+                                .body(StringBody(mediumDungeon))
+                                .check(status().is(200))
+                                .check(jsonPath("$.result").ofInt().is(4))
+                    )
+            );
+
+    {
+        System.out.println("=== Throughput Test Configuration ===");
+        System.out.println("Label: " + LABEL);
+        System.out.println("Concurrency: " + CONCURRENCY);
+        System.out.println("Batch Size: " + BATCH_SIZE);
+        System.out.println("Test Duration: " + TEST_DURATION + "s");
+        System.out.println("Base URL: " + BASE_URL);
+        System.out.println("=====================================");
+
+        setUp(
+            saturate.injectClosed(
+                rampConcurrentUsers(1).to(CONCURRENCY).during(10),
+                constantConcurrentUsers(CONCURRENCY).during(TEST_DURATION)
+            )
+        )
+        .protocols(httpProtocol)
+        .maxDuration(TEST_DURATION + 10)
+        .assertions(
+            global().successfulRequests().percent().gt(99.0)
+        );
+    }
+}
@@ -0,0 +1,258 @@
+package com.codegik.stress;
+
+import com.codegik.dto.DungeonBinaryFormat;
+import com.codegik.game.DungeonGame;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Seeded source of dungeons for the Gatling simulations. Rows and columns are drawn independently
+ * from a Zipf distribution over 1..maxSide, so small grids dominate while large ones still show
+ * up. With probability repeatRatio a previously generated dungeon is sent again instead of a new
+ * one, which controls how much of the traffic the result cache can absorb. Every dungeon carries
+ * its answer from the reference FULL_TABLE solver so responses can be checked.
+ *
+ * Generating, solving and encoding happen on one producer thread that keeps a pool of ready
+ * request bodies, so Gatling's injection threads only take from the pool. Call
+ * {@link #awaitPool()} from the simulation's before() to fill it ahead of the first user.
+ *
+ * Configured from GEN_SEED, GEN_MAX_SIDE, GEN_ZIPF_EXPONENT, GEN_REPEAT_RATIO, GEN_HISTORY,
+ * GEN_HISTORY_MB and GEN_POOL.
+ */
+public final class DungeonGenerator {
+
+    public static final String BODY = "dungeonBody";
+    public static final String EXPECTED_RESULT = "expectedResult";
+    public static final String SIZE = "dungeonSize";
+
+    private static final int MIN_CELL = -100;
+    private static final int MAX_CELL = 100;
+
+    private final Random random;
+    private final double[] sideCdf;
+    private final double repeatRatio;
+    private final boolean binary;
+    private final BlockingQueue<Map<String, Object>> pool;
+    private final CountDownLatch poolFilled = new CountDownLatch(1);
+
+    // Ring of recently generated bodies, bounded by count and by total body bytes
+    private final Map<String, Object>[] history;
+    private final long[] historySizes;
+    private final long historyBytesLimit;
+    private int historyStart;
+    private int historyCount;
+    private long historyBytes;
+
+    private Thread producer;
+    private volatile Throwable failure;
+
+    public record GeneratedDungeon(int[][] grid, int expectedResult) {
+
+        // A fixed dungeon with its answer from the reference solver
+        public static GeneratedDungeon of(int[][] grid) {
+            return new GeneratedDungeon(grid, new DungeonGame().calculateMinimumHP(grid));
+        }
+
+        public String json() {
+            StringBuilder json = new StringBuilder("{\"dungeon\":[");
+            for (int i = 0; i < grid.length; i++) {
+                if (i > 0) {
+                    json.append(',');
+                }
+                json.append('[');
+                for (int j = 0; j < grid[i].length; j++) {
+                    if (j > 0) {
+                        json.append(',');
+                    }
+                    json.append(grid[i][j]);
+                }
+                json.append(']');
+            }
+            return json.append("]}").toString();
+        }
+
+        public String size() {
+            return grid.length + "x" + grid[0].length;
+        }
+    }
+
+    /**
+     * @param binary feed application/x-dungeon bytes instead of the JSON request
+     */
+    @SuppressWarnings("unchecked")
+    public DungeonGenerator(long seed, int maxSide, double zipfExponent, double repeatRatio,
+                            int historySize, long historyBytesLimit, int poolSize, boolean binary) {
+        if (maxSide < 1 || repeatRatio < 0 || repeatRatio > 1 || historySize < 1 || historyBytesLimit < 1 || poolSize < 1) {
+            throw new IllegalArgumentException("Invalid generator settings");
+        }
+        this.random = new Random(seed);
+        this.repeatRatio = repeatRatio;
+        this.binary = binary;
+        this.history = new Map[historySize];
+        this.historySizes = new long[historySize];
+        this.historyBytesLimit = historyBytesLimit;
+        this.pool = new ArrayBlockingQueue<>(poolSize);
+        this.sideCdf = new double[maxSide];
+        double total = 0;
+        for (int side = 1; side <= maxSide; side++) {
+            total += 1.0 / Math.pow(side, zipfExponent);
+            sideCdf[side - 1] = total;
+        }
+        for (int i = 0; i < maxSide; i++) {
+            sideCdf[i] /= total;
+        }
+    }
+
+    public static DungeonGenerator fromEnvironment(boolean binary) {
+        return new DungeonGenerator(
+            Long.parseLong(env("GEN_SEED", "42")),
+            Integer.parseInt(env("GEN_MAX_SIDE", "1000")),
+            Double.parseDouble(env("GEN_ZIPF_EXPONENT", "1.2")),
+            Double.parseDouble(env("GEN_REPEAT_RATIO", "0.5")),
+            Integer.parseInt(env("GEN_HISTORY", "1000")),
+            Long.parseLong(env("GEN_HISTORY_MB", "256")) << 20,
+            Integer.parseInt(env("GEN_POOL", "200")),
+            binary);
+    }
+
+    private GeneratedDungeon generate() {
+        int rows = sampleSide();
+        int columns = sampleSide();
+        int[][] grid = new int[rows][columns];
+        for (int[] row : grid) {
+            for (int j = 0; j < columns; j++) {
+                row[j] = MIN_CELL + random.nextInt(MAX_CELL - MIN_CELL + 1);
+            }
+        }
+        return GeneratedDungeon.of(grid);
+    }
+
+    /**
+     * Endless Gatling feeder backed by the pool. Starts the producer on first use; a record that is
+     * not ready yet blocks the caller until it is.
+     */
+    public synchronized Iterator<Map<String, Object>> feeder() {
+        if (producer == null) {
+            producer = new Thread(this::produce, "dungeon-generator");
+            producer.setDaemon(true);
+            producer.start();
+        }
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public Map<String, Object> next() {
+                try {
+                    Map<String, Object> record = pool.poll(1, TimeUnit.SECONDS);
+                    while (record == null) {
+                        checkProducer();
+                        record = pool.poll(1, TimeUnit.SECONDS);
+                    }
+                    return record;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for a generated dungeon", e);
+                }
+            }
+        };
+    }
+
+    // Blocks until the pool is full; does nothing when no feeder was handed out
+    public void awaitPool() {
+        synchronized (this) {
+            if (producer == null) {
+                return;
+            }
+        }
+        try {
+            while (!poolFilled.await(1, TimeUnit.SECONDS)) {
+                checkProducer();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void produce() {
+        try {
+            while (true) {
+                pool.put(nextRecord());
+                if (pool.remainingCapacity() == 0) {
+                    poolFilled.countDown();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException | Error e) {
+            failure = e;
+        }
+    }
+
+    private void checkProducer() {
+        if (failure != null) {
+            throw new IllegalStateException("Dungeon generator failed", failure);
+        }
+    }
+
+    private Map<String, Object> nextRecord() {
+        if (historyCount > 0 && random.nextDouble() < repeatRatio) {
+            return history[(historyStart + random.nextInt(historyCount)) % history.length];
+        }
+
+        GeneratedDungeon dungeon = generate();
+        long bytes;
+        Object body;
+        if (binary) {
+            byte[] encoded = DungeonBinaryFormat.writeGrid(dungeon.grid());
+            bytes = encoded.length;
+            body = encoded;
+        } else {
+            String json = dungeon.json();
+            bytes = json.length();
+            body = json;
+        }
+        Map<String, Object> record = Map.of(BODY, body, EXPECTED_RESULT, dungeon.expectedResult(), SIZE, dungeon.size());
+        remember(record, bytes);
+        return record;
+    }
+
+    private void remember(Map<String, Object> record, long bytes) {
+        if (bytes > historyBytesLimit) {
+            return;
+        }
+        while (historyCount == history.length || historyBytes + bytes > historyBytesLimit) {
+            historyBytes -= historySizes[historyStart];
+            history[historyStart] = null;
+            historyStart = (historyStart + 1) % history.length;
+            historyCount--;
+        }
+        int slot = (historyStart + historyCount) % history.length;
+        history[slot] = record;
+        historySizes[slot] = bytes;
+        historyBytes += bytes;
+        historyCount++;
+    }
+
+    private int sampleSide() {
+        int index = Arrays.binarySearch(sideCdf, random.nextDouble());
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return Math.min(index, sideCdf.length - 1) + 1;
+    }
+
+    private static String env(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value == null || value.isBlank() ? defaultValue : value.trim();
+    }
+}
@@ -0,0 +1,391 @@
+package com.codegik.stress;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Merges the simulation.log files of several Gatling nodes into one latency report. Each log is
+ * streamed record by record, recording request records into one HdrHistogram per request name and
+ * node. The node histograms are then added together, which keeps the merged percentiles exact to
+ * the histogram precision instead of averaging per-node summaries. Memory depends on the number of
+ * request names and the run length in seconds, not on the log size.
+ *
+ * Reads the binary simulation.log that Gatling writes since 3.10; the tab-separated logs of older
+ * versions are rejected.
+ *
+ * ./mvnw test-compile exec:java -Dexec.classpathScope=test \
+ *   -Dexec.mainClass=com.codegik.stress.SimulationLogConsolidator \
+ *   -Dexec.args="target/gatling/consolidated logs/node1 logs/node2 logs/node3"
+ */
+public class SimulationLogConsolidator {
+
+    private static final String ALL_REQUESTS = "All Requests";
+    private static final String GROUP_SEPARATOR = " / ";
+    // Record headers of io.gatling.core.stats.writer.RecordHeader
+    private static final int RUN_RECORD = 0;
+    private static final int REQUEST_RECORD = 1;
+    private static final int USER_RECORD = 2;
+    private static final int GROUP_RECORD = 3;
+    private static final int ERROR_RECORD = 4;
+    // Strings are written as the raw bytes of java.lang.String, in the writer JVM's byte order
+    private static final Charset UTF16 = ByteOrder.nativeOrder() == ByteOrder.BIG_ENDIAN
+        ? StandardCharsets.UTF_16BE : StandardCharsets.UTF_16LE;
+    private static final long HIGHEST_TRACKABLE_MILLIS = 3_600_000;
+    private static final double[] PERCENTILES = {50.0, 90.0, 99.0, 99.9};
+
+    // Per request name: latency histogram plus OK/KO counts
+    static final class RequestStats {
+        final Histogram latencies = new Histogram(HIGHEST_TRACKABLE_MILLIS, 3);
+        long ok;
+        long ko;
+
+        void record(long millis, boolean success) {
+            latencies.recordValue(Math.max(0, Math.min(millis, HIGHEST_TRACKABLE_MILLIS)));
+            if (success) {
+                ok++;
+            } else {
+                ko++;
+            }
+        }
+
+        void add(RequestStats other) {
+            latencies.add(other.latencies);
+            ok += other.ok;
+            ko += other.ko;
+        }
+    }
+
+    static final class NodeStats {
+        final String node;
+        final Map<String, RequestStats> requests = new TreeMap<>();
+        // Epoch second of each response end -> {ok, ko}
+        final TreeMap<Long, long[]> perSecond = new TreeMap<>();
+        // Set when the log ends part way through a record, as it does for a node killed mid-run
+        boolean truncated;
+
+        NodeStats(String node) {
+            this.node = node;
+        }
+
+        void add(NodeStats other) {
+            other.requests.forEach((name, stats) -> requests.computeIfAbsent(name, n -> new RequestStats()).add(stats));
+            other.perSecond.forEach((second, counts) -> {
+                long[] merged = perSecond.computeIfAbsent(second, s -> new long[2]);
+                merged[0] += counts[0];
+                merged[1] += counts[1];
+            });
+            truncated |= other.truncated;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: SimulationLogConsolidator <output-dir> <simulation.log or directory>...");
+            System.exit(2);
+        }
+        Path outputDir = Path.of(args[0]);
+        List<NodeStats> nodes = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            for (Path log : findLogs(Path.of(args[i]))) {
+                System.out.println("Reading " + log);
+                nodes.add(read(log, log.toString()));
+            }
+        }
+        if (nodes.isEmpty()) {
+            System.err.println("No simulation.log found");
+            System.exit(1);
+        }
+
+        NodeStats global = new NodeStats("global");
+        for (NodeStats node : nodes) {
+            global.add(node);
+        }
+
+        Files.createDirectories(outputDir);
+        try (Writer json = Files.newBufferedWriter(outputDir.resolve("latency-summary.json"))) {
+            writeJson(json, global, nodes);
+        }
+        try (Writer html = Files.newBufferedWriter(outputDir.resolve("latency-summary.html"))) {
+            writeHtml(html, global, nodes);
+        }
+        System.out.print(table(global));
+        System.out.println("Summary written to " + outputDir.resolve("latency-summary.json") + " and latency-summary.html");
+    }
+
+    static List<Path> findLogs(Path path) throws IOException {
+        if (Files.isRegularFile(path)) {
+            return List.of(path);
+        }
+        try (Stream<Path> files = Files.walk(path)) {
+            return files.filter(file -> file.getFileName().toString().equals("simulation.log")).sorted().toList();
+        }
+    }
+
+    static NodeStats read(Path log, String node) throws IOException {
+        try (InputStream in = Files.newInputStream(log)) {
+            return read(in, node);
+        }
+    }
+
+    static NodeStats read(InputStream in, String node) throws IOException {
+        NodeStats stats = new NodeStats(node);
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in, 1 << 16));
+        int header = data.read();
+        if (header != RUN_RECORD) {
+            throw new IOException(node + " is not a binary simulation.log; Gatling 3.10 or later is required");
+        }
+        LogReader reader = new LogReader(data);
+        long runStart = reader.readRun();
+        try {
+            for (header = data.read(); header >= 0; header = data.read()) {
+                switch (header) {
+                    case REQUEST_RECORD -> reader.readRequest(stats, runStart);
+                    case USER_RECORD -> reader.skip(Integer.BYTES + 1 + Integer.BYTES);
+                    case GROUP_RECORD -> {
+                        reader.readGroups();
+                        reader.skip(3 * Integer.BYTES + 1);
+                    }
+                    case ERROR_RECORD -> {
+                        reader.readCachedString();
+                        reader.skip(Integer.BYTES);
+                    }
+                    default -> throw new IOException(node + " has an unknown record type " + header);
+                }
+            }
+        } catch (EOFException e) {
+            stats.truncated = true;
+        }
+        return stats;
+    }
+
+    /**
+     * Decodes the fields of LogFileDataWriter's records. Names and messages go through a string
+     * cache: a positive index is followed by the string it now stands for, a negative one refers
+     * back to an earlier string. Timestamps are milliseconds from the run start.
+     */
+    private static final class LogReader {
+        private final DataInputStream in;
+        private final Map<Integer, String> strings = new HashMap<>();
+
+        LogReader(DataInputStream in) {
+            this.in = in;
+        }
+
+        // Gatling version, simulation class, start epoch millis, description, scenarios, assertions
+        long readRun() throws IOException {
+            readString();
+            readString();
+            long runStart = in.readLong();
+            readString();
+            for (int scenarios = in.readInt(); scenarios > 0; scenarios--) {
+                readString();
+            }
+            for (int assertions = in.readInt(); assertions > 0; assertions--) {
+                skip(in.readInt());
+            }
+            return runStart;
+        }
+
+        // Groups, name, start, end, OK flag, message
+        void readRequest(NodeStats stats, long runStart) throws IOException {
+            String groups = readGroups();
+            String name = readCachedString();
+            long start = in.readInt();
+            long end = in.readInt();
+            boolean success = in.readBoolean();
+            readCachedString();
+            long millis = end - start;
+            String key = groups.isEmpty() ? name : groups + GROUP_SEPARATOR + name;
+            stats.requests.computeIfAbsent(key, k -> new RequestStats()).record(millis, success);
+            stats.requests.computeIfAbsent(ALL_REQUESTS, k -> new RequestStats()).record(millis, success);
+            long[] counts = stats.perSecond.computeIfAbsent((runStart + end) / 1000, second -> new long[2]);
+            counts[success ? 0 : 1]++;
+        }
+
+        String readGroups() throws IOException {
+            int depth = in.readInt();
+            if (depth == 0) {
+                return "";
+            }
+            StringBuilder path = new StringBuilder(readCachedString());
+            for (int i = 1; i < depth; i++) {
+                path.append(GROUP_SEPARATOR).append(readCachedString());
+            }
+            return path.toString();
+        }
+
+        String readCachedString() throws IOException {
+            int index = in.readInt();
+            if (index < 0) {
+                String cached = strings.get(-index);
+                if (cached == null) {
+                    throw new IOException("Reference to unknown string " + -index);
+                }
+                return cached;
+            }
+            String value = readString();
+            strings.put(index, value);
+            return value;
+        }
+
+        // Length, the String's internal bytes and its coder; an empty string is the length alone
+        String readString() throws IOException {
+            int length = in.readInt();
+            if (length == 0) {
+                return "";
+            }
+            byte[] bytes = new byte[length];
+            in.readFully(bytes);
+            return new String(bytes, in.readByte() == 0 ? StandardCharsets.ISO_8859_1 : UTF16);
+        }
+
+        void skip(int bytes) throws IOException {
+            in.skipNBytes(bytes);
+        }
+    }
+
+    static String table(NodeStats stats) {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format(Locale.ROOT, "%-30s %10s %8s %8s %8s %8s %8s %8s%n",
+            "request", "count", "KO", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms"));
+        stats.requests.forEach((name, request) -> {
+            Histogram h = request.latencies;
+            out.append(String.format(Locale.ROOT, "%-30s %10d %8d %8d %8d %8d %8d %8d%n",
+                name, h.getTotalCount(), request.ko, h.getValueAtPercentile(50.0), h.getValueAtPercentile(90.0),
+                h.getValueAtPercentile(99.0), h.getValueAtPercentile(99.9), h.getMaxValue()));
+        });
+        if (stats.truncated) {
+            out.append("A log ended part way through a record; that record was skipped\n");
+        }
+        return out.toString();
+    }
+
+    static void writeJson(Writer out, NodeStats global, List<NodeStats> nodes) throws IOException {
+        out.write("{\"requests\":");
+        writeRequestsJson(out, global);
+        out.write(",\"throughput\":[");
+        boolean first = true;
+        for (Map.Entry<Long, long[]> second : global.perSecond.entrySet()) {
+            if (!first) {
+                out.write(',');
+            }
+            first = false;
+            out.write(String.format(Locale.ROOT, "{\"epochSecond\":%d,\"ok\":%d,\"ko\":%d}",
+                second.getKey(), second.getValue()[0], second.getValue()[1]));
+        }
+        out.write("],\"nodes\":[");
+        for (int i = 0; i < nodes.size(); i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            out.write("{\"source\":\"" + escapeJson(nodes.get(i).node) + "\",\"requests\":");
+            writeRequestsJson(out, nodes.get(i));
+            out.write('}');
+        }
+        out.write("]}\n");
+    }
+
+    private static void writeRequestsJson(Writer out, NodeStats stats) throws IOException {
+        out.write('{');
+        boolean first = true;
+        for (Map.Entry<String, RequestStats> entry : stats.requests.entrySet()) {
+            if (!first) {
+                out.write(',');
+            }
+            first = false;
+            Histogram h = entry.getValue().latencies;
+            out.write(String.format(Locale.ROOT,
+                "\"%s\":{\"count\":%d,\"ok\":%d,\"ko\":%d,\"meanMillis\":%.3f,\"maxMillis\":%d",
+                escapeJson(entry.getKey()), h.getTotalCount(), entry.getValue().ok, entry.getValue().ko,
+                h.getMean(), h.getMaxValue()));
+            for (double percentile : PERCENTILES) {
+                out.write(String.format(Locale.ROOT, ",\"p%sMillis\":%d",
+                    percentileLabel(percentile), h.getValueAtPercentile(percentile)));
+            }
+            out.write('}');
+        }
+        out.write('}');
+    }
+
+    static void writeHtml(Writer out, NodeStats global, List<NodeStats> nodes) throws IOException {
+        out.write("<!DOCTYPE html>\n<html><head><meta charset=\"utf-8\"><title>Consolidated latency</title>"
+            + "<style>body{font-family:sans-serif}table{border-collapse:collapse}"
+            + "td,th{border:1px solid #ccc;padding:4px 8px;text-align:right}td:first-child{text-align:left}</style>"
+            + "</head><body>\n<h1>Consolidated latency (" + nodes.size() + " logs)</h1>\n");
+        writeHtmlTable(out, global);
+        out.write("<h2>Throughput (responses per second)</h2>\n");
+        writeThroughputSvg(out, global.perSecond);
+        for (NodeStats node : nodes) {
+            out.write("<h2>" + escapeHtml(node.node) + "</h2>\n");
+            writeHtmlTable(out, node);
+        }
+        out.write("</body></html>\n");
+    }
+
+    private static void writeHtmlTable(Writer out, NodeStats stats) throws IOException {
+        out.write("<table><tr><th>Request</th><th>Count</th><th>KO</th><th>p50 ms</th><th>p90 ms</th>"
+            + "<th>p99 ms</th><th>p99.9 ms</th><th>Max ms</th></tr>\n");
+        for (Map.Entry<String, RequestStats> entry : stats.requests.entrySet()) {
+            Histogram h = entry.getValue().latencies;
+            out.write(String.format(Locale.ROOT,
+                "<tr><td>%s</td><td>%d</td><td>%d</td><td>%d</td><td>%d</td><td>%d</td><td>%d</td><td>%d</td></tr>%n",
+                escapeHtml(entry.getKey()), h.getTotalCount(), entry.getValue().ko, h.getValueAtPercentile(50.0),
+                h.getValueAtPercentile(90.0), h.getValueAtPercentile(99.0), h.getValueAtPercentile(99.9), h.getMaxValue()));
+        }
+        out.write("</table>\n");
+    }
+
+    private static void writeThroughputSvg(Writer out, TreeMap<Long, long[]> perSecond) throws IOException {
+        if (perSecond.isEmpty()) {
+            return;
+        }
+        long first = perSecond.firstKey();
+        long span = Math.max(1, perSecond.lastKey() - first);
+        long peak = 1;
+        for (long[] counts : perSecond.values()) {
+            peak = Math.max(peak, counts[0] + counts[1]);
+        }
+        int width = 900;
+        int height = 200;
+        StringBuilder points = new StringBuilder();
+        for (Map.Entry<Long, long[]> second : perSecond.entrySet()) {
+            double x = (second.getKey() - first) * (double) width / span;
+            double y = height - (second.getValue()[0] + second.getValue()[1]) * (double) height / peak;
+            points.append(String.format(Locale.ROOT, "%.1f,%.1f ", x, y));
+        }
+        out.write(String.format(Locale.ROOT,
+            "<p>Peak %d req/s over %d s</p><svg width=\"%d\" height=\"%d\" style=\"border:1px solid #ccc\">"
+                + "<polyline fill=\"none\" stroke=\"#3366cc\" points=\"%s\"/></svg>%n",
+            peak, span, width, height, points.toString().trim()));
+    }
+
+    private static String percentileLabel(double percentile) {
+        return percentile == Math.rint(percentile) ? String.valueOf((int) percentile) : String.valueOf(percentile).replace('.', '_');
+    }
+
+    private static String escapeJson(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    private static String escapeHtml(String value) {
+        return value.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+}
@@ -0,0 +1,82 @@
+package com.codegik.stress;
+
+import com.codegik.stress.SimulationLogConsolidator.NodeStats;
+import com.codegik.stress.SimulationLogConsolidator.RequestStats;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SimulationLogConsolidatorTest {
+
+    // Written by Gatling 3.13.5: 3 users each run calculate, calculate inside the group flow, and a
+    // broken request that fails its status check
+    private static final String FIXTURE = "/gatling/simulation-3.13.5.log";
+
+    @Test
+    @DisplayName("Reads the binary log written by Gatling 3.13 with the counts and extremes of Gatling's own report")
+    void testReadsGatlingLog() throws IOException {
+        NodeStats stats = SimulationLogConsolidator.read(new ByteArrayInputStream(fixture()), "node1");
+
+        assertEquals(List.of("All Requests", "broken", "calculate", "flow / calculate"), List.copyOf(stats.requests.keySet()));
+        RequestStats all = stats.requests.get("All Requests");
+        assertEquals(9, all.latencies.getTotalCount());
+        assertEquals(6, all.ok);
+        assertEquals(3, all.ko);
+        assertEquals(9, all.latencies.getMinValue());
+        assertEquals(388, all.latencies.getMaxValue());
+        assertEquals(3, stats.requests.get("broken").ko);
+        assertEquals(3, stats.requests.get("flow / calculate").ok);
+        assertEquals(9, stats.perSecond.values().stream().mapToLong(counts -> counts[0] + counts[1]).sum());
+        assertFalse(stats.truncated);
+    }
+
+    @Test
+    @DisplayName("Merging nodes adds their histograms")
+    void testMergesNodes() throws IOException {
+        NodeStats global = new NodeStats("global");
+        global.add(SimulationLogConsolidator.read(new ByteArrayInputStream(fixture()), "node1"));
+        global.add(SimulationLogConsolidator.read(new ByteArrayInputStream(fixture()), "node2"));
+
+        RequestStats all = global.requests.get("All Requests");
+        assertEquals(18, all.latencies.getTotalCount());
+        assertEquals(6, all.ko);
+        assertEquals(388, all.latencies.getMaxValue());
+    }
+
+    @Test
+    @DisplayName("A log cut off mid-record keeps the complete records and is flagged")
+    void testTruncatedLog() throws IOException {
+        byte[] log = fixture();
+
+        NodeStats stats = SimulationLogConsolidator.read(new ByteArrayInputStream(Arrays.copyOf(log, log.length - 5)), "node1");
+
+        assertTrue(stats.truncated);
+        assertEquals(9, stats.requests.get("All Requests").latencies.getTotalCount());
+    }
+
+    @Test
+    @DisplayName("Tab-separated logs from Gatling before 3.10 are rejected")
+    void testRejectsTextLog() {
+        byte[] text = "RUN\tDungeonGameStressTest\tdungeongamestresstest\t1700000000000\t \t3.9.5\n"
+            .getBytes(StandardCharsets.UTF_8);
+
+        assertThrows(IOException.class, () -> SimulationLogConsolidator.read(new ByteArrayInputStream(text), "node1"));
+    }
+
+    private static byte[] fixture() throws IOException {
+        try (InputStream in = SimulationLogConsolidatorTest.class.getResourceAsStream(FIXTURE)) {
+            return in.readAllBytes();
+        }
+    }
+}
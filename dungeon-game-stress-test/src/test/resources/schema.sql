@@ -1,14 +1,39 @@
 -- H2 compatible schema for Dungeon Game results (for tests)
-CREATE TABLE IF NOT EXISTS dungeon_results (
+CREATE TABLE IF NOT EXISTS dungeons (
     id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
-    dungeon_data TEXT NOT NULL,
+    content_hash BYTEA NOT NULL UNIQUE,
+    dungeon_data BYTEA,
+    result INTEGER NOT NULL,
+    rows INTEGER NOT NULL,
+    columns INTEGER NOT NULL
+);
+
+-- Not partitioned: H2 has no declarative partitioning, so tests run with dungeon.partitions.enabled=false
+CREATE TABLE IF NOT EXISTS dungeon_submissions (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    dungeon_id BIGINT NOT NULL REFERENCES dungeons(id),
     result INTEGER NOT NULL,
     rows INTEGER NOT NULL,
     columns INTEGER NOT NULL,
     created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
 );
 
+CREATE OR REPLACE VIEW dungeon_results AS
+    SELECT s.id, d.dungeon_data, s.result, s.rows, s.columns, s.created_at
+    FROM dungeon_submissions s LEFT JOIN dungeons d ON d.id = s.dungeon_id;
+
 -- Create indexes for better query performance
-CREATE INDEX IF NOT EXISTS idx_dungeon_results_result ON dungeon_results(result);
-CREATE INDEX IF NOT EXISTS idx_dungeon_results_dimensions ON dungeon_results(rows, columns);
-CREATE INDEX IF NOT EXISTS idx_dungeon_results_created_at ON dungeon_results(created_at DESC);
+CREATE INDEX IF NOT EXISTS idx_dungeon_submissions_result ON dungeon_submissions(result);
+CREATE INDEX IF NOT EXISTS idx_dungeon_submissions_dimensions ON dungeon_submissions(rows, columns);
+CREATE INDEX IF NOT EXISTS idx_dungeon_submissions_created_at ON dungeon_submissions(created_at DESC);
+CREATE INDEX IF NOT EXISTS idx_dungeon_submissions_dungeon_id ON dungeon_submissions(dungeon_id);
+
+-- Periodic snapshots of the in-memory result histograms (HdrHistogram compressed encoding). Each
+-- holds the window's results created before its cutoff; startup replays rows from the latest cutoff.
+CREATE TABLE IF NOT EXISTS result_distribution_checkpoints (
+    dimension_bucket VARCHAR(32) NOT NULL,
+    window_start TIMESTAMP NOT NULL,
+    histogram BYTEA NOT NULL,
+    cutoff TIMESTAMP NOT NULL,
+    PRIMARY KEY (dimension_bucket, window_start)
+);